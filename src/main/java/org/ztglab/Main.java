@@ -1,9 +1,61 @@
 package org.ztglab;
+import org.ztglab.ui.BatchRunner;
 import org.ztglab.ui.ConsoleUI;
 
+import java.nio.file.Paths;
+
 public class Main {
+
+    private static final String USAGE = "用法: java org.ztglab.Main [--script <file> [--quiet] [--fail-fast|--continue]]";
+
     public static void main(String[] args) {
-        ConsoleUI ui = new ConsoleUI();
-        ui.start();
+        if (args.length == 0) {
+            ConsoleUI ui = new ConsoleUI();
+            ui.start();
+            return;
+        }
+        System.exit(runBatch(args));
+    }
+
+    /**
+     * 无界面批处理模式
+     * @return 进程退出码：全部成功为0，有命令失败为1，参数或脚本错误为2
+     */
+    private static int runBatch(String[] args) {
+        String script = null;
+        boolean quiet = false;
+        boolean failFast = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--script" -> {
+                    if (i + 1 >= args.length) {
+                        System.err.println(USAGE);
+                        return 2;
+                    }
+                    script = args[++i];
+                }
+                case "--quiet" -> quiet = true;
+                case "--fail-fast" -> failFast = true;
+                case "--continue" -> failFast = false;
+                default -> {
+                    System.err.println("未知参数: " + args[i]);
+                    System.err.println(USAGE);
+                    return 2;
+                }
+            }
+        }
+        if (script == null) {
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            BatchRunner.Result result = new BatchRunner(Paths.get(script), quiet, failFast).run();
+            System.out.println(result.summary());
+            return result.failed() > 0 ? 1 : 0;
+        } catch (Exception e) {
+            System.err.println("错误: " + e.getMessage());
+            return 2;
+        }
     }
-}
\ No newline at end of file
+}
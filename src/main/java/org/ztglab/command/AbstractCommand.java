@@ -1,7 +1,9 @@
 package org.ztglab.command;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ztglab.util.MonotonicClock;
 
 /**
  * 命令抽象基类 - 所有命令的唯一基类
@@ -12,13 +14,18 @@ import java.util.UUID;
  * 3. 执行状态
  * 
  * 所有业务逻辑由命令处理器负责，命令本身不包含任何处理逻辑
+ *
+ * 时间以单调纳秒记录，ID 为进程内序号，字符串和 LocalDateTime 在读取时才生成
  */
 public abstract class AbstractCommand {
 
-    private final String commandId;
-    private final String commandType;
-    private final LocalDateTime issuedTime;
-    private LocalDateTime completedTime;
+    // 全局命令序号
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final long sequence;
+    private final long issuedNanos;
+    private long completedNanos;
+    private boolean completed;
     private CommandStatus status;
 
     private String originalName;
@@ -28,9 +35,8 @@ public abstract class AbstractCommand {
      * 构造函数 - 自动初始化基础属性
      */
     protected AbstractCommand() {
-        this.commandId = UUID.randomUUID().toString();
-        this.commandType = this.getClass().getSimpleName();
-        this.issuedTime = LocalDateTime.now();
+        this.sequence = SEQUENCE.incrementAndGet();
+        this.issuedNanos = MonotonicClock.now();
         this.status = CommandStatus.PENDING;
     }
 
@@ -38,35 +44,50 @@ public abstract class AbstractCommand {
      * 获取命令唯一标识符
      */
     public final String getCommandId() {
-        return commandId;
+        return String.format("cmd-%08x", sequence);
+    }
+
+    /**
+     * 获取命令序号（进程内单调递增）
+     */
+    public final long getSequence() {
+        return sequence;
     }
 
     /**
      * 获取命令类型
      */
     public final String getCommandType() {
-        return commandType;
+        return this.getClass().getSimpleName();
     }
 
     /**
      * 获取命令发出时间
      */
     public final LocalDateTime getIssuedTime() {
-        return issuedTime;
+        return MonotonicClock.toLocalDateTime(issuedNanos);
     }
 
     /**
-     * 获取命令完成时间
+     * 获取命令完成时间，未完成时返回null
      */
     public final LocalDateTime getCompletedTime() {
-        return completedTime;
+        return completed ? MonotonicClock.toLocalDateTime(completedNanos) : null;
+    }
+
+    /**
+     * 设置命令完成的单调时间（仅供CommandBus调用）
+     */
+    public final void setCompletedNanos(long completedNanos) {
+        this.completedNanos = completedNanos;
+        this.completed = true;
     }
 
     /**
-     * 设置命令完成时间（仅供CommandBus调用）
+     * 获取命令从发出到完成的耗时（纳秒），未完成时返回-1
      */
-    public final void setCompletedTime(LocalDateTime completedTime) {
-        this.completedTime = completedTime;
+    public final long getElapsedNanos() {
+        return completed ? completedNanos - issuedNanos : -1;
     }
 
     /**
@@ -104,7 +125,7 @@ public abstract class AbstractCommand {
     @Override
     public String toString() {
         return String.format("%s[id=%s, issued=%s, status=%s]",
-                commandType, commandId.substring(0, 8), issuedTime, status);
+                getCommandType(), getCommandId(), getIssuedTime(), status);
     }
 
     /**
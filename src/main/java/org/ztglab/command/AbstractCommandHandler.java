@@ -4,6 +4,7 @@ package org.ztglab.command;
  * 命令处理器抽象基类
  * 
  * 提供canHandle方法的默认实现，简化具体处理器的开发
+ * 提供面向用户的输出接口，处理器不直接写 System.out
  * 
  * @param <T> 命令类型
  */
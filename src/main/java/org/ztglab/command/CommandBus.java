@@ -1,13 +1,15 @@
 package org.ztglab.command;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.ztglab.event.EventBus;
 import org.ztglab.event.events.*;
+import org.ztglab.util.MonotonicClock;
+import org.ztglab.util.RingBuffer;
 
 /**
  * 命令总线 - 负责命令的分发和路由
@@ -17,21 +19,31 @@ import org.ztglab.event.events.*;
  * 2. 接收命令并分发到对应的处理器
  * 3. 管理命令执行生命周期（状态更新、时间记录）
  * 4. 发布命令相关事件到事件总线
- * 5. 提供命令执行历史记录
+ * 5. 提供命令执行历史记录（定长环形缓冲区，长时间运行时内存占用恒定）
+ *
+ * 分发路径的开销控制：
+ * - 没有监听器的生命周期事件直接跳过，不创建事件对象
+ * - 低开销模式下不记录命令历史，除命令本身外几乎没有额外分配（用于大批量脚本回放）
  */
 public class CommandBus {
 
     // 命令处理器注册表：命令类型 -> 处理器列表
     private final Map<Class<? extends AbstractCommand>, List<ICommandHandler<? extends AbstractCommand>>> handlers;
 
-    // 命令执行历史（可选，用于调试和日志）
-    private final List<AbstractCommand> commandHistory;
+    // 默认保留的历史命令条数
+    public static final int DEFAULT_HISTORY_CAPACITY = 1000;
+
+    // 命令执行历史（可选，用于调试和日志），只保留最近的若干条
+    private volatile RingBuffer<AbstractCommand> commandHistory = new RingBuffer<>(DEFAULT_HISTORY_CAPACITY);
 
     // 事件总线（用于发布命令相关事件）
     private final EventBus eventBus;
 
     // 是否记录历史
-    private boolean recordHistory = true;
+    private volatile boolean recordHistory = true;
+
+    // 低开销模式：不记录命令历史
+    private volatile boolean lowOverhead = false;
 
     /**
      * 构造函数
@@ -40,7 +52,6 @@ public class CommandBus {
      */
     public CommandBus(EventBus eventBus) {
         this.handlers = new ConcurrentHashMap<>();
-        this.commandHistory = new ArrayList<>();
         this.eventBus = eventBus;
     }
 
@@ -83,11 +94,15 @@ public class CommandBus {
         }
 
         // 1. 发布命令接收事件
-        eventBus.publish(new CommandReceivedEvent(command));
+        if (eventBus.isObserved(CommandReceivedEvent.class)) {
+            eventBus.publish(new CommandReceivedEvent(command));
+        }
 
         // 2. 更新命令状态为执行中，并发布事件
         command.setStatus(AbstractCommand.CommandStatus.EXECUTING);
-        eventBus.publish(new CommandExecutingEvent(command));
+        if (eventBus.isObserved(CommandExecutingEvent.class)) {
+            eventBus.publish(new CommandExecutingEvent(command));
+        }
 
         try {
             // 查找对应的处理器
@@ -98,25 +113,29 @@ public class CommandBus {
             }
 
             // 执行所有注册的处理器（支持多个处理器处理同一命令）
-            for (ICommandHandler<? extends AbstractCommand> handler : handlerList) {
-                ((ICommandHandler<AbstractCommand>) handler).handle(command);
+            for (int i = 0; i < handlerList.size(); i++) {
+                ((ICommandHandler<AbstractCommand>) handlerList.get(i)).handle(command);
             }
 
             // 3. 更新命令状态为完成，并发布事件
             command.setStatus(AbstractCommand.CommandStatus.COMPLETED);
-            command.setCompletedTime(LocalDateTime.now());
-            eventBus.publish(new CommandCompletedEvent(command));
+            command.setCompletedNanos(MonotonicClock.now());
+            if (eventBus.isObserved(CommandCompletedEvent.class)) {
+                eventBus.publish(new CommandCompletedEvent(command));
+            }
 
             // 记录历史
-            if (recordHistory) {
+            if (recordHistory && !lowOverhead) {
                 commandHistory.add(command);
             }
 
         } catch (Exception e) {
             // 4. 更新命令状态为失败，并发布事件
             command.setStatus(AbstractCommand.CommandStatus.FAILED);
-            command.setCompletedTime(LocalDateTime.now());
-            eventBus.publish(new CommandFailedEvent(command, e));
+            command.setCompletedNanos(MonotonicClock.now());
+            if (eventBus.isObserved(CommandFailedEvent.class)) {
+                eventBus.publish(new CommandFailedEvent(command, e));
+            }
             
             throw e;
         }
@@ -128,7 +147,26 @@ public class CommandBus {
      * @return 命令历史列表
      */
     public List<AbstractCommand> getCommandHistory() {
-        return new ArrayList<>(commandHistory);
+        return commandHistory.toList();
+    }
+
+    /**
+     * 按从旧到新的顺序访问最近执行的命令（不复制历史）
+     *
+     * @param limit 最多访问的条数
+     * @param action 访问函数
+     */
+    public void forEachRecentCommand(int limit, Consumer<? super AbstractCommand> action) {
+        commandHistory.forEachRecent(limit, action);
+    }
+
+    /**
+     * 设置历史保留条数（会丢弃已有历史）
+     *
+     * @param capacity 保留条数
+     */
+    public void setHistoryCapacity(int capacity) {
+        this.commandHistory = new RingBuffer<>(capacity);
     }
 
     /**
@@ -147,6 +185,23 @@ public class CommandBus {
         this.recordHistory = recordHistory;
     }
 
+    /**
+     * 设置低开销模式：开启后不记录命令历史
+     * （无监听器的生命周期事件无论是否开启都会跳过）
+     *
+     * @param lowOverhead 是否开启
+     */
+    public void setLowOverhead(boolean lowOverhead) {
+        this.lowOverhead = lowOverhead;
+    }
+
+    /**
+     * 是否处于低开销模式
+     */
+    public boolean isLowOverhead() {
+        return lowOverhead;
+    }
+
     /**
      * 获取已注册的处理器数量
      * 
@@ -7,6 +7,8 @@ import org.ztglab.workspace.Document;
 import org.ztglab.infrastructure.FileUtil;
 import java.util.Scanner;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 关闭文件命令
  */
@@ -50,7 +52,8 @@ public class CloseFileCommand extends AbstractCommand {
             }
 
             if (doc.isModified()) {
-                System.out.println("文件已修改，是否保存? (y/n)");
+                output().println("文件已修改，是否保存? (y/n)");
+                output().flush();
                 String ans = scanner.nextLine();
                 if (ans.equalsIgnoreCase("y")) {
                     workspace.notifySaved(doc.getFilePath());
@@ -2,31 +2,81 @@ package org.ztglab.command.commands;
 
 import org.ztglab.command.AbstractCommand;
 import org.ztglab.command.AbstractCommandHandler;
+import org.ztglab.workspace.Document;
 import org.ztglab.workspace.Workspace;
 import org.ztglab.infrastructure.FileUtil;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.ztglab.infrastructure.ApplicationContext.output;
 
 /**
  * 加载文件命令
+ *
+ * 支持一次加载多个文件或通配符（如 load a.txt "b c.xml" src/**&#47;*.xml）：
+ * 先按参数顺序展开通配符（同一通配符的匹配结果按路径排序），再在有界线程池上并行读取文件、构建文档，
+ * 最后在命令线程上按展开顺序依次加入工作区，结果与逐个 load 相同，最后一个文件成为活动文件。
  */
 public class LoadFileCommand extends AbstractCommand {
-    
-    private final String filepath;
+
+    // 并行读取文件的线程数上限
+    private static final int LOAD_THREADS = 8;
+
+    private final List<String> filepaths;
 
     public LoadFileCommand(String filepath) {
+        this(List.of(filepath));
+    }
+
+    public LoadFileCommand(List<String> filepaths) {
         super();
-        this.filepath = filepath;
+        if (filepaths.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个文件路径");
+        }
+        this.filepaths = List.copyOf(filepaths);
     }
 
+    /**
+     * 第一个文件路径或通配符
+     */
     public String getFilepath() {
-        return filepath;
+        return filepaths.get(0);
+    }
+
+    /**
+     * 全部文件路径或通配符
+     */
+    public List<String> getFilepaths() {
+        return filepaths;
     }
 
     @Override
     public String getDescription() {
-        return "加载文件: " + filepath;
+        return "加载文件: " + String.join(" ", filepaths);
+    }
+
+    /**
+     * 参数是否包含通配符
+     */
+    public static boolean isGlob(String pattern) {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0
+                || pattern.indexOf('[') >= 0 || pattern.indexOf('{') >= 0;
     }
 
     public static class Handler extends AbstractCommandHandler<LoadFileCommand> {
@@ -39,8 +89,17 @@ public class LoadFileCommand extends AbstractCommand {
 
         @Override
         public void handle(LoadFileCommand command) throws Exception {
-            String abs = new File(command.getFilepath()).getAbsolutePath();
-            
+            List<String> filepaths = command.getFilepaths();
+            if (filepaths.size() == 1 && !isGlob(filepaths.get(0))) {
+                loadSingle(filepaths.get(0));
+            } else {
+                loadAll(filepaths);
+            }
+        }
+
+        private void loadSingle(String filepath) throws Exception {
+            String abs = new File(filepath).getAbsolutePath();
+
             // 如果已经在工作区中，直接切换
             if (workspace.getDocuments().containsKey(abs)) {
                 workspace.openDocument(abs, null); // content null 表示不重新加载
@@ -50,7 +109,7 @@ public class LoadFileCommand extends AbstractCommand {
             // 如果文件不存在，走初始化流程
             if (!Files.exists(Paths.get(abs))) {
                 workspace.init(abs);
-                System.out.println("新文件已创建并加载: " + abs);
+                output().println("新文件已创建并加载: " + abs);
                 return;
             }
 
@@ -58,5 +117,116 @@ public class LoadFileCommand extends AbstractCommand {
             String content = FileUtil.readContent(abs);
             workspace.openDocument(abs, content);
         }
+
+        /**
+         * 加载多个文件：展开通配符 -> 并行读取并构建文档 -> 按顺序加入工作区
+         * 个别文件读取失败不影响其他文件，全部结束后汇总报告
+         */
+        private void loadAll(List<String> patterns) throws Exception {
+            Set<String> paths = new LinkedHashSet<>();
+            StringBuilder failures = new StringBuilder();
+            for (String pattern : patterns) {
+                if (!isGlob(pattern)) {
+                    paths.add(new File(pattern).getAbsolutePath());
+                    continue;
+                }
+                List<String> matched;
+                try {
+                    matched = expand(pattern);
+                } catch (IOException | UncheckedIOException e) {
+                    // 如子目录无权限读取：只报告该通配符，其余参数照常加载
+                    Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+                    failures.append(System.lineSeparator()).append("  ").append(pattern).append(": ").append(cause.getMessage());
+                    continue;
+                }
+                if (matched.isEmpty() && patterns.size() == 1) {
+                    // 只有一个参数且没有匹配：当作普通路径处理（如新建 notes[1].txt），与单个 load 相同
+                    loadSingle(pattern);
+                    return;
+                }
+                if (matched.isEmpty()) {
+                    failures.append(System.lineSeparator()).append("  ").append(pattern).append(": 没有匹配的文件");
+                }
+                paths.addAll(matched);
+            }
+
+            // 只并行读取未打开的普通文件；其余路径（已打开、不存在等）按单个 load 的方式处理
+            List<String> toRead = new ArrayList<>();
+            for (String path : paths) {
+                if (!workspace.getDocuments().containsKey(path) && Files.isRegularFile(Paths.get(path))) {
+                    toRead.add(path);
+                }
+            }
+
+            List<Future<Document>> tasks = new ArrayList<>(toRead.size());
+            if (!toRead.isEmpty()) {
+                try (ExecutorService pool = Executors.newFixedThreadPool(Math.min(LOAD_THREADS, toRead.size()))) {
+                    for (String path : toRead) {
+                        tasks.add(pool.submit(() -> Workspace.createDocument(path, FileUtil.readContent(path))));
+                    }
+                }
+            }
+
+            int loaded = 0;
+            int next = 0;
+            for (String path : paths) {
+                if (next < toRead.size() && toRead.get(next).equals(path)) {
+                    try {
+                        workspace.openDocument(tasks.get(next).get());
+                        loaded++;
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        failures.append(System.lineSeparator()).append("  ").append(path).append(": ").append(cause.getMessage());
+                    }
+                    next++;
+                } else {
+                    try {
+                        loadSingle(path);
+                        loaded++;
+                    } catch (Exception e) {
+                        failures.append(System.lineSeparator()).append("  ").append(path).append(": ").append(e.getMessage());
+                    }
+                }
+            }
+
+            output().println("共加载 " + loaded + " 个文件");
+            if (failures.length() > 0) {
+                throw new Exception("以下文件加载失败:" + failures);
+            }
+        }
+
+        /**
+         * 展开通配符，返回按路径排序的普通文件（绝对路径）
+         * 从第一个含通配符的路径段之前的目录开始遍历；不含 ** 时只遍历到通配符的层数。
+         * 与 shell 一致，开头的 "**&#47;" 也匹配零层目录。
+         */
+        private static List<String> expand(String pattern) throws IOException {
+            String normalized = pattern.replace('\\', '/');
+            String[] segments = normalized.split("/", -1);
+            int firstGlob = 0;
+            while (firstGlob < segments.length && !isGlob(segments[firstGlob])) {
+                firstGlob++;
+            }
+            // 保留结尾的分隔符，使 /*.txt 从根目录、C:/*.txt 从盘符根目录开始遍历
+            String basePart = firstGlob == 0 ? "." : String.join("/", Arrays.copyOfRange(segments, 0, firstGlob)) + "/";
+            Path base = Paths.get(basePart).toAbsolutePath().normalize();
+            if (!Files.isDirectory(base)) {
+                return List.of();
+            }
+            String rest = String.join("/", Arrays.copyOfRange(segments, firstGlob, segments.length));
+            int depth = rest.contains("**") ? Integer.MAX_VALUE : segments.length - firstGlob;
+
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + rest);
+            PathMatcher topLevel = rest.startsWith("**/")
+                    ? FileSystems.getDefault().getPathMatcher("glob:" + rest.substring(3)) : matcher;
+            try (Stream<Path> files = Files.walk(base, depth)) {
+                return files.filter(Files::isRegularFile)
+                        .map(base::relativize)
+                        .filter(p -> matcher.matches(p) || topLevel.matches(p))
+                        .map(p -> base.resolve(p).toString())
+                        .sorted()
+                        .toList();
+            }
+        }
     }
 }
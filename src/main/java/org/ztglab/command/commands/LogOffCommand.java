@@ -8,6 +8,8 @@ import org.ztglab.infrastructure.ApplicationContext;
 import org.ztglab.infrastructure.LoggingService;
 import java.io.File;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 public class LogOffCommand extends AbstractCommand {
     private final String filepath;
 
@@ -59,7 +61,7 @@ public class LogOffCommand extends AbstractCommand {
             LoggingService service = ApplicationContext.getInstance().getLoggingService();
             if (service != null) {
                 service.disable(path);
-                System.out.println("已关闭日志: " + path);
+                output().println("已关闭日志: " + path);
             }
         }
     }
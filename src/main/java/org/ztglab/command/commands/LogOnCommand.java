@@ -8,6 +8,8 @@ import org.ztglab.infrastructure.ApplicationContext;
 import org.ztglab.infrastructure.LoggingService;
 import java.io.File;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 public class LogOnCommand extends AbstractCommand {
     private final String filepath;
 
@@ -75,14 +77,14 @@ public class LogOnCommand extends AbstractCommand {
                     doc.setModified(true);
                 }
                 service.enable(path);
-                System.out.println("已启用日志: " + path);
+                output().println("已启用日志: " + path);
             } else {
                 File f = new File(path);
                 if (f.exists()) {
                     service.enable(f.getAbsolutePath());
-                    System.out.println("已启用日志: " + f.getAbsolutePath());
+                    output().println("已启用日志: " + f.getAbsolutePath());
                 } else {
-                    System.out.println("文件未打开: " + path);
+                    output().println("文件未打开: " + path);
                 }
             }
 
@@ -5,20 +5,34 @@ import org.ztglab.command.AbstractCommandHandler;
 import org.ztglab.workspace.Workspace;
 import org.ztglab.workspace.Document;
 import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.infrastructure.LogQuery;
 import org.ztglab.infrastructure.LoggingService;
 import java.io.File;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 public class LogShowCommand extends AbstractCommand {
     private final String filepath;
+    // 查询条件，为null时显示全部日志
+    private final LogQuery query;
 
     public LogShowCommand(String filepath) {
+        this(filepath, null);
+    }
+
+    public LogShowCommand(String filepath, LogQuery query) {
         this.filepath = filepath;
+        this.query = query;
     }
 
     public String getFilepath() {
         return filepath;
     }
 
+    public LogQuery getQuery() {
+        return query;
+    }
+
     @Override
     public String getDescription() {
         return "显示日志内容: " + (filepath != null ? filepath : "当前文件");
@@ -56,16 +70,37 @@ public class LogShowCommand extends AbstractCommand {
             }
 
             LoggingService service = ApplicationContext.getInstance().getLoggingService();
-            if (service != null) {
+            if (service != null && command.getQuery() != null) {
+                showQuery(service, path, command.getQuery());
+            } else if (service != null) {
                 String content = service.readLog(path);
                 if (content.isEmpty()) {
-                    System.out.println("(日志为空或文件不存在)");
+                    output().println("(日志为空或文件不存在)");
                 } else {
-                    System.out.println("=== 日志内容 [" + path + "] ===");
-                    System.out.println(content);
-                    System.out.println("=====================================");
+                    output().println("=== 日志内容 [" + path + "] ===");
+                    output().println(content);
+                    output().println("=====================================");
                 }
             }
         }
+
+        private void showQuery(LoggingService service, String path, LogQuery query) {
+            LogQuery.Result result = service.queryLog(path, query);
+            if (result.lines().isEmpty()) {
+                output().println("(没有符合条件的日志)");
+                return;
+            }
+            output().println("=== 日志内容 [" + path + "] ===");
+            for (String line : result.lines()) {
+                output().println(line);
+            }
+            if (query.getTail() == 0 && query.getPage() > 0) {
+                output().println("=== 第 " + query.getPage() + " 页"
+                        + (result.hasMore() ? "，使用 --page " + (query.getPage() + 1) + " 查看下一页" : "，已到末尾")
+                        + " ===");
+            } else {
+                output().println("=====================================");
+            }
+        }
     }
 }
@@ -0,0 +1,45 @@
+package org.ztglab.command.commands;
+
+import org.ztglab.command.AbstractCommand;
+import org.ztglab.command.AbstractCommandHandler;
+import org.ztglab.infrastructure.WorkspaceRepository;
+import org.ztglab.workspace.Workspace;
+
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
+/**
+ * 恢复自动保存内容命令
+ * 用恢复目录中上次会话自动保存的内容恢复未保存的文档
+ */
+public class RecoverCommand extends AbstractCommand {
+
+    public RecoverCommand() {
+        super();
+    }
+
+    @Override
+    public String getDescription() {
+        return "恢复自动保存的文件";
+    }
+
+    public static class Handler extends AbstractCommandHandler<RecoverCommand> {
+        private final Workspace workspace;
+        private final WorkspaceRepository repository;
+
+        public Handler(Workspace workspace, WorkspaceRepository repository) {
+            super(RecoverCommand.class);
+            this.workspace = workspace;
+            this.repository = repository;
+        }
+
+        @Override
+        public void handle(RecoverCommand command) throws Exception {
+            int count = repository.recover(workspace);
+            if (count == 0) {
+                output().println("没有可恢复的文件");
+            } else {
+                output().println("共恢复 " + count + " 个文件，请检查后保存");
+            }
+        }
+    }
+}
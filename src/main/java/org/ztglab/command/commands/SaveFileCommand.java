@@ -6,9 +6,22 @@ import org.ztglab.workspace.Workspace;
 import org.ztglab.workspace.Document;
 import org.ztglab.infrastructure.FileUtil;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.ztglab.infrastructure.ApplicationContext.output;
 
 /**
  * 保存文件命令
+ *
+ * 只有写入成功后才把文档标记为已保存。
+ * save all 只保存有修改的文档，各文件在虚拟线程上并行写入，全部结束后汇总失败的文件。
  */
 public class SaveFileCommand extends AbstractCommand {
     
@@ -51,17 +64,14 @@ public class SaveFileCommand extends AbstractCommand {
         @Override
         public void handle(SaveFileCommand command) throws Exception {
             if (command.isSaveAll()) {
-                for (Document doc : workspace.getDocuments().values()) {
-                    workspace.notifySaved(doc.getFilePath());
-                    FileUtil.saveFile(doc.getFilePath(), doc);
-                }
+                saveAll();
             } else if (command.getFilepath() == null) {
                 // 保存当前文件
                 Document activeDoc = workspace.getActiveDocument();
                 if (activeDoc == null) throw new Exception("没有活动文件");
                 
-                workspace.notifySaved(activeDoc.getFilePath());
                 FileUtil.saveFile(activeDoc.getFilePath(), activeDoc);
+                workspace.notifySaved(activeDoc.getFilePath());
             } else {
                 // 另存为或保存指定文件
                 String targetPath = new File(command.getFilepath()).getAbsolutePath();
@@ -70,18 +80,64 @@ public class SaveFileCommand extends AbstractCommand {
                 // 检查是否是“另存为”场景（当前是临时文件，或者目标路径与当前不同）
                 if (activeDoc != null && activeDoc.getFilePath().startsWith("<unsaved-")) {
                     // 这是一个“另存为”操作
-                    workspace.notifySavedAs(activeDoc.getFilePath(), targetPath);
                     FileUtil.saveFile(targetPath, activeDoc);
+                    workspace.notifySavedAs(activeDoc.getFilePath(), targetPath);
                 } else {
                     // 只是保存指定路径的文件（必须已打开）
                     if (!workspace.getDocuments().containsKey(targetPath)) {
                         throw new Exception("文件未在工作区中打开: " + targetPath);
                     }
                     Document doc = workspace.getDocuments().get(targetPath);
-                    workspace.notifySaved(targetPath);
                     FileUtil.saveFile(targetPath, doc);
+                    workspace.notifySaved(targetPath);
                 }
             }
         }
+
+        /**
+         * 并行保存所有有修改的文档
+         * 未命名文档（<unsaved-...>）没有目标路径，跳过并提示另存为
+         */
+        private void saveAll() throws Exception {
+            List<Document> dirty = new ArrayList<>();
+            for (Document doc : workspace.getModifiedDocuments()) {
+                if (doc.getFilePath().startsWith("<unsaved-")) {
+                    output().println("跳过未命名文件: " + doc.getFilePath() + "（请使用 save <file> 另存为）");
+                } else {
+                    dirty.add(doc);
+                }
+            }
+            if (dirty.isEmpty()) {
+                output().println("没有需要保存的文件");
+                return;
+            }
+
+            // 文档 -> 写入任务；写入期间命令线程等待，文档内容不会变化
+            Map<Document, Future<?>> tasks = new LinkedHashMap<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Document doc : dirty) {
+                    String path = doc.getFilePath();
+                    tasks.put(doc, executor.submit(() -> {
+                        FileUtil.saveFile(path, doc);
+                        return null;
+                    }));
+                }
+            }
+
+            StringBuilder failures = new StringBuilder();
+            for (Map.Entry<Document, Future<?>> entry : tasks.entrySet()) {
+                String path = entry.getKey().getFilePath();
+                try {
+                    entry.getValue().get();
+                    workspace.notifySaved(path);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    failures.append(System.lineSeparator()).append("  ").append(path).append(": ").append(cause.getMessage());
+                }
+            }
+            if (failures.length() > 0) {
+                throw new Exception("以下文件保存失败:" + failures);
+            }
+        }
     }
 }
@@ -5,6 +5,8 @@ import org.ztglab.command.AbstractCommandHandler;
 import org.ztglab.workspace.Workspace;
 import org.ztglab.workspace.Document;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 显示命令 (通用)
  * 
@@ -59,7 +61,7 @@ public class ShowCommand extends AbstractCommand {
             } else {
                 content = workspace.getEditorService().show(doc, command.getStart(), command.getEnd());
             }
-            System.out.println(content);
+            output().println(content);
         }
     }
 }
@@ -5,6 +5,8 @@ import org.ztglab.command.AbstractCommandHandler;
 import org.ztglab.workspace.Workspace;
 import java.io.File;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 显示目录树命令
  */
@@ -51,7 +53,7 @@ public class ShowDirTreeCommand extends AbstractCommand {
             File target = new File(path);
 
             if (!target.exists()) {
-                System.out.println("路径不存在: " + path);
+                output().println("路径不存在: " + path);
                 return;
             }
 
@@ -60,7 +62,7 @@ public class ShowDirTreeCommand extends AbstractCommand {
             // 如果是文件 → 找到父目录
             if (target.isFile()) {
                 root = target.getParentFile();
-                System.out.println("输入的是文件，将展示其父目录：" + root.getAbsolutePath());
+                output().println("输入的是文件，将展示其父目录：" + root.getAbsolutePath());
             } else {
                 root = target;
             }
@@ -75,7 +77,7 @@ public class ShowDirTreeCommand extends AbstractCommand {
             // 标记目标文件
             String displayName = isTarget ? ("[** " + file.getName() + " **]") : file.getName();
 
-            System.out.println(prefix + (isLast ? "└── " : "├── ") + displayName);
+            output().println(prefix + (isLast ? "└── " : "├── ") + displayName);
 
             if (file.isDirectory()) {
                 File[] children = file.listFiles();
@@ -9,6 +9,8 @@ import org.ztglab.infrastructure.StatisticsService;
 import java.io.File;
 import java.util.Map;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 显示编辑器列表命令
  */
@@ -71,7 +73,7 @@ public class ShowEditorListCommand extends AbstractCommand {
                     lineBuilder.append(")");
                 }
                 
-                System.out.println(lineBuilder.toString());
+                output().println(lineBuilder.toString());
             }
         }
     }
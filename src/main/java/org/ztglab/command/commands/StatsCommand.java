@@ -0,0 +1,74 @@
+package org.ztglab.command.commands;
+
+import org.ztglab.command.AbstractCommand;
+import org.ztglab.command.AbstractCommandHandler;
+import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.infrastructure.MetricsService;
+
+import java.nio.file.Paths;
+
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
+/**
+ * 命令耗时统计命令
+ * stats              显示各类命令的耗时分布、失败率与吞吐量
+ * stats reset        清空统计
+ * stats dump <file>  把统计写入文件
+ */
+public class StatsCommand extends AbstractCommand {
+
+    public enum Action {
+        SHOW,
+        RESET,
+        DUMP
+    }
+
+    private final Action action;
+    private final String filePath;
+
+    public StatsCommand(Action action, String filePath) {
+        super();
+        this.action = action;
+        this.filePath = filePath;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public String getDescription() {
+        return switch (action) {
+            case SHOW -> "显示命令统计";
+            case RESET -> "清空命令统计";
+            case DUMP -> "导出命令统计: " + filePath;
+        };
+    }
+
+    public static class Handler extends AbstractCommandHandler<StatsCommand> {
+
+        public Handler() {
+            super(StatsCommand.class);
+        }
+
+        @Override
+        public void handle(StatsCommand command) throws Exception {
+            MetricsService metrics = ApplicationContext.getInstance().getMetricsService();
+            switch (command.getAction()) {
+                case SHOW -> output().println(metrics.render());
+                case RESET -> {
+                    metrics.reset();
+                    output().println("命令统计已清空");
+                }
+                case DUMP -> {
+                    metrics.dump(Paths.get(command.getFilePath()));
+                    output().println("命令统计已导出: " + command.getFilePath());
+                }
+            }
+        }
+    }
+}
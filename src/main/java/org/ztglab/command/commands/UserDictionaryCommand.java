@@ -0,0 +1,88 @@
+package org.ztglab.command.commands;
+
+import org.ztglab.command.AbstractCommand;
+import org.ztglab.command.AbstractCommandHandler;
+import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.spellcheck.UserDictionary;
+import org.ztglab.workspace.Workspace;
+
+import java.util.List;
+
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
+/**
+ * 用户词典命令
+ * dict-add <word...>    加入词典（持久化）
+ * dict-ignore <word...> 本次运行中忽略
+ * dict-list             列出词典与忽略列表
+ */
+public class UserDictionaryCommand extends AbstractCommand {
+
+    public enum Action {
+        ADD,
+        IGNORE,
+        LIST
+    }
+
+    private final Action action;
+    private final List<String> words;
+
+    public UserDictionaryCommand(Action action, List<String> words) {
+        super();
+        this.action = action;
+        this.words = words == null ? List.of() : List.copyOf(words);
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public List<String> getWords() {
+        return words;
+    }
+
+    @Override
+    public String getDescription() {
+        return switch (action) {
+            case ADD -> "加入用户词典: " + String.join(" ", words);
+            case IGNORE -> "忽略词汇: " + String.join(" ", words);
+            case LIST -> "显示用户词典";
+        };
+    }
+
+    public static class Handler extends AbstractCommandHandler<UserDictionaryCommand> {
+        private final Workspace workspace;
+
+        public Handler(Workspace workspace) {
+            super(UserDictionaryCommand.class);
+            this.workspace = workspace;
+        }
+
+        @Override
+        public void handle(UserDictionaryCommand command) throws Exception {
+            UserDictionary dictionary = workspace.getUserDictionary();
+
+            if (command.getAction() == Action.LIST) {
+                output().println("用户词典: " + String.join(", ", dictionary.getWords()));
+                output().println("忽略列表: " + String.join(", ", dictionary.getIgnored()));
+                return;
+            }
+
+            if (command.getWords().isEmpty()) {
+                throw new IllegalArgumentException("请指定至少一个词");
+            }
+            int added = 0;
+            for (String word : command.getWords()) {
+                boolean isNew = command.getAction() == Action.ADD ? dictionary.add(word) : dictionary.ignore(word);
+                if (isNew) {
+                    added++;
+                }
+            }
+            if (added > 0) {
+                // 词典变化后之前的检查结果不再准确
+                ApplicationContext.getInstance().getSpellCheckService().invalidateAll();
+            }
+            output().println((command.getAction() == Action.ADD ? "已加入词典: " : "已忽略: ") + added + " 个词");
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package org.ztglab.event;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ztglab.util.MonotonicClock;
 
 /**
  * 事件基类 - 所有事件的抽象基类
@@ -9,41 +11,59 @@ import java.util.UUID;
  * 职责：
  * 1. 提供事件的基础属性（ID、时间戳、类型）
  * 2. 事件是不可变的数据对象
+ *
+ * 构造时只记录序号和单调时间（两个 long），
+ * ID 字符串和 LocalDateTime 在首次读取时才生成
  */
 public abstract class Event {
-    
-    private final String eventId;
-    private final String eventType;
-    private final LocalDateTime timestamp;
+
+    // 全局事件序号
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final long sequence;
+    private final long nanoTime;
 
     /**
      * 构造函数
      */
     protected Event() {
-        this.eventId = UUID.randomUUID().toString();
-        this.eventType = this.getClass().getSimpleName();
-        this.timestamp = LocalDateTime.now();
+        this.sequence = SEQUENCE.incrementAndGet();
+        this.nanoTime = MonotonicClock.now();
     }
 
     /**
      * 获取事件唯一标识符
      */
     public final String getEventId() {
-        return eventId;
+        return String.format("evt-%08x", sequence);
+    }
+
+    /**
+     * 获取事件序号（进程内单调递增）
+     */
+    public final long getSequence() {
+        return sequence;
     }
 
     /**
      * 获取事件类型
      */
     public final String getEventType() {
-        return eventType;
+        return this.getClass().getSimpleName();
     }
 
     /**
      * 获取事件时间戳
      */
     public final LocalDateTime getTimestamp() {
-        return timestamp;
+        return MonotonicClock.toLocalDateTime(nanoTime);
+    }
+
+    /**
+     * 获取事件发生时的单调时间（纳秒）
+     */
+    public final long getNanoTime() {
+        return nanoTime;
     }
 
     /**
@@ -54,6 +74,6 @@ public abstract class Event {
     @Override
     public String toString() {
         return String.format("%s[id=%s, time=%s]",
-                eventType, eventId.substring(0, 8), timestamp);
+                getEventType(), getEventId(), getTimestamp());
     }
 }
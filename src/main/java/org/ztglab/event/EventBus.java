@@ -1,10 +1,26 @@
 package org.ztglab.event;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.ztglab.util.RingBuffer;
 
 /**
  * 事件总线 - 负责事件的发布和订阅
@@ -13,36 +29,103 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * 1. 维护事件监听器注册表
  * 2. 接收事件并分发到对应的监听器
  * 3. 支持同步和异步事件发布
- * 4. 提供事件历史记录（可选）
+ * 4. 提供事件历史记录（可选，定长环形缓冲区，只保留最近的事件）
+ *
+ * 层次分发：
+ * - 订阅某个类型即可收到它的所有子类事件，订阅类型可以是父类或接口（如订阅 Event 收到全部事件）
+ * - 每个具体事件类型的分发目标预先计算为数组并缓存，发布时只做一次数组遍历，不产生分配
+ * - 订阅/取消订阅时清空缓存，下次发布时按需重新计算
+ * - 分发顺序：先具体类型，再沿父类链向上，每一层之后是该层实现的接口；同一类型内按注册顺序
+ *
+ * 异步分发：
+ * - 每个监听器拥有一个有界邮箱，同一时刻最多一个任务在执行器上排空它，
+ *   因此同一监听器收到的异步事件严格按入队顺序处理
+ * - 邮箱满时发布方阻塞等待（背压），不会无限堆积
+ * - 执行器可配置：默认使用虚拟线程，也可传入有界线程池
+ * - shutdown 会先排空所有邮箱再关闭执行器；关闭后的异步事件退化为同步分发
  */
 public class EventBus {
 
-    // 事件监听器注册表：事件类型 -> 监听器列表（线程安全）
-    private final Map<Class<? extends Event>, List<IEventListener<? extends Event>>> listeners;
+    // 默认每个监听器的异步队列容量
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    // 事件监听器注册表：订阅类型 -> 订阅列表（读写均在 this 锁内）
+    private final Map<Class<?>, List<Subscription>> listeners;
+
+    // 分发表缓存：具体事件类型 -> 所有匹配的订阅（包括父类与接口上的订阅）
+    private final Map<Class<?>, Subscription[]> dispatchCache = new ConcurrentHashMap<>();
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    // 默认保留的历史事件条数
+    public static final int DEFAULT_HISTORY_CAPACITY = 256;
 
-    // 事件发布历史（可选，用于调试）
-    private final List<Event> eventHistory;
+    // 事件发布历史（可选，用于调试），只保留最近的若干条
+    private volatile RingBuffer<Event> eventHistory = new RingBuffer<>(DEFAULT_HISTORY_CAPACITY);
 
     // 是否记录历史
-    private boolean recordHistory = false;
+    private volatile boolean recordHistory = false;
+
+    // 异步分发执行器与每个邮箱的容量
+    private final ExecutorService asyncExecutor;
+    private final int queueCapacity;
+    // 所有已创建的邮箱（用于排空）
+    private final Set<Mailbox> mailboxes = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown = false;
 
     /**
-     * 构造函数
+     * 构造函数（异步分发使用虚拟线程）
      */
     public EventBus() {
-        this.listeners = new ConcurrentHashMap<>();
-        this.eventHistory = new ArrayList<>();
+        this(Executors.newVirtualThreadPerTaskExecutor(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param asyncExecutor 异步分发使用的执行器（虚拟线程或有界线程池）
+     * @param queueCapacity 每个监听器异步队列的容量
+     */
+    public EventBus(ExecutorService asyncExecutor, int queueCapacity) {
+        if (asyncExecutor == null) {
+            throw new IllegalArgumentException("执行器不能为null");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0");
+        }
+        this.listeners = new HashMap<>();
+        this.asyncExecutor = asyncExecutor;
+        this.queueCapacity = queueCapacity;
     }
 
     /**
-     * 注册事件监听器
+     * 注册事件监听器（同步：在发布线程上直接调用）
      * 
-     * @param eventClass 事件类型
+     * @param eventClass 事件类型，可以是父类或接口
      * @param listener 监听器实例
      */
-    public <T extends Event> void subscribe(Class<T> eventClass, IEventListener<? super T> listener) {
-        listeners.computeIfAbsent(eventClass, k -> new CopyOnWriteArrayList<>())
-                .add((IEventListener<? extends Event>) listener);
+    public <T> void subscribe(Class<T> eventClass, IEventListener<? super T> listener) {
+        addSubscription(eventClass, listener, false);
+    }
+
+    /**
+     * 注册异步事件监听器：事件进入该监听器的有界队列，由执行器按顺序处理，
+     * 适合耗时的监听器（如写磁盘），使其不再阻塞命令执行路径
+     * 
+     * @param eventClass 事件类型，可以是父类或接口
+     * @param listener 监听器实例
+     */
+    public <T> void subscribeAsync(Class<T> eventClass, IEventListener<? super T> listener) {
+        addSubscription(eventClass, listener, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void addSubscription(Class<?> eventClass, IEventListener<?> listener, boolean async) {
+        if (eventClass == null || listener == null) {
+            throw new IllegalArgumentException("事件类型和监听器不能为null");
+        }
+        listeners.computeIfAbsent(eventClass, k -> new ArrayList<>())
+                .add(new Subscription((IEventListener<Object>) listener, async));
+        dispatchCache.clear();
     }
 
     /**
@@ -51,22 +134,70 @@ public class EventBus {
      * @param eventClass 事件类型
      * @param listener 监听器实例
      */
-    public <T extends Event> void unsubscribe(Class<T> eventClass, IEventListener<? super T> listener) {
-        List<IEventListener<? extends Event>> listenerList = listeners.get(eventClass);
+    public synchronized <T> void unsubscribe(Class<T> eventClass, IEventListener<? super T> listener) {
+        List<Subscription> listenerList = listeners.get(eventClass);
         if (listenerList != null) {
-            listenerList.remove(listener);
+            listenerList.removeIf(s -> s.listener.equals(listener));
             if (listenerList.isEmpty()) {
                 listeners.remove(eventClass);
             }
+            dispatchCache.clear();
+        }
+    }
+
+    /**
+     * 获取某个具体事件类型的分发表（命中缓存时无分配）
+     */
+    private Subscription[] dispatchTable(Class<?> eventClass) {
+        Subscription[] table = dispatchCache.get(eventClass);
+        return table != null ? table : resolveDispatchTable(eventClass);
+    }
+
+    /**
+     * 计算并缓存分发表
+     * 与订阅变更持有同一把锁，避免把基于旧注册表算出的结果写回已清空的缓存
+     */
+    private synchronized Subscription[] resolveDispatchTable(Class<?> eventClass) {
+        Subscription[] table = dispatchCache.get(eventClass);
+        if (table != null) {
+            return table;
+        }
+        List<Subscription> matched = new ArrayList<>();
+        for (Class<?> type : typeHierarchy(eventClass)) {
+            List<Subscription> listenerList = listeners.get(type);
+            if (listenerList != null) {
+                matched.addAll(listenerList);
+            }
+        }
+        table = matched.isEmpty() ? NO_SUBSCRIPTIONS : matched.toArray(NO_SUBSCRIPTIONS);
+        dispatchCache.put(eventClass, table);
+        return table;
+    }
+
+    /**
+     * 类型层次：具体类型，沿父类链向上，每一层之后是该层（及其父接口）的接口
+     */
+    private static Set<Class<?>> typeHierarchy(Class<?> eventClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> type = eventClass; type != null; type = type.getSuperclass()) {
+            types.add(type);
+            Deque<Class<?>> interfaces = new ArrayDeque<>(List.of(type.getInterfaces()));
+            while (!interfaces.isEmpty()) {
+                Class<?> iface = interfaces.poll();
+                if (types.add(iface)) {
+                    Collections.addAll(interfaces, iface.getInterfaces());
+                }
+            }
         }
+        return types;
     }
 
     /**
      * 发布事件（同步）
+     * 同步监听器在当前线程上依次调用；异步监听器的事件进入各自队列
      * 
      * @param event 要发布的事件
      */
-    @SuppressWarnings("unchecked")
     public void publish(Event event) {
         if (event == null) {
             return;
@@ -77,31 +208,98 @@ public class EventBus {
             eventHistory.add(event);
         }
 
-        // 查找对应的监听器
-        List<IEventListener<? extends Event>> listenerList = listeners.get(event.getClass());
-
-        if (listenerList == null || listenerList.isEmpty()) {
-            return; // 没有监听器，静默返回
-        }
-
+        // 查找对应的监听器（包括父类与接口上的订阅），没有监听器时为空数组
         // 通知所有监听器
-        for (IEventListener<? extends Event> listener : listenerList) {
-            try {
-                ((IEventListener<Event>) listener).onEvent(event);
-            } catch (Exception e) {
-                // 监听器异常不应影响事件发布流程
-                System.err.println("[EventBus] 监听器处理事件失败: " + e.getMessage());
+        for (Subscription subscription : dispatchTable(event.getClass())) {
+            if (subscription.async) {
+                subscription.mailbox().enqueue(event);
+            } else {
+                deliver(subscription.listener, event);
             }
         }
     }
 
     /**
      * 发布事件（异步）
+     * 所有监听器都通过各自的有界队列在执行器上处理，发布方只在队列满时阻塞
      * 
      * @param event 要发布的事件
      */
     public void publishAsync(Event event) {
-        new Thread(() -> publish(event)).start();
+        if (event == null) {
+            return;
+        }
+
+        if (recordHistory) {
+            eventHistory.add(event);
+        }
+
+        for (Subscription subscription : dispatchTable(event.getClass())) {
+            subscription.mailbox().enqueue(event);
+        }
+    }
+
+    /**
+     * 等待所有异步队列处理完毕
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 如果在超时前全部处理完毕返回true
+     */
+    public boolean drain(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Mailbox mailbox : mailboxes) {
+            while (!mailbox.isIdle()) {
+                if (mailbox.isDrainedBy(Thread.currentThread())) {
+                    break; // 监听器内部发起排空，不能等待自己
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 关闭异步分发：排空所有队列后关闭执行器
+     * 关闭之后发布的异步事件在发布线程上同步处理
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        if (shutdown) {
+            return;
+        }
+        drain(timeout, unit);
+        shutdown = true;
+        asyncExecutor.shutdown();
+        try {
+            if (!asyncExecutor.awaitTermination(timeout, unit)) {
+                asyncExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            asyncExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 异步分发是否已关闭
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    private static void deliver(IEventListener<Object> listener, Event event) {
+        try {
+            listener.onEvent(event);
+        } catch (Exception e) {
+            // 监听器异常不应影响事件发布流程
+            System.err.println("[EventBus] 监听器处理事件失败: " + e.getMessage());
+        }
     }
 
     /**
@@ -110,7 +308,26 @@ public class EventBus {
      * @return 事件历史列表
      */
     public List<Event> getEventHistory() {
-        return new ArrayList<>(eventHistory);
+        return eventHistory.toList();
+    }
+
+    /**
+     * 按从旧到新的顺序访问最近的事件（不复制历史）
+     *
+     * @param limit 最多访问的条数
+     * @param action 访问函数
+     */
+    public void forEachRecentEvent(int limit, Consumer<? super Event> action) {
+        eventHistory.forEachRecent(limit, action);
+    }
+
+    /**
+     * 设置历史保留条数（会丢弃已有历史）
+     *
+     * @param capacity 保留条数
+     */
+    public void setHistoryCapacity(int capacity) {
+        this.eventHistory = new RingBuffer<>(capacity);
     }
 
     /**
@@ -129,23 +346,136 @@ public class EventBus {
         this.recordHistory = recordHistory;
     }
 
+    /**
+     * 是否记录历史
+     */
+    public boolean isRecordHistory() {
+        return recordHistory;
+    }
+
+    /**
+     * 发布该类型的事件是否有意义（有监听器会收到，或需要记录历史）
+     * 发布方可据此跳过无人关心的事件，连事件对象都不必创建
+     *
+     * @param eventClass 事件类型
+     */
+    public boolean isObserved(Class<? extends Event> eventClass) {
+        return recordHistory || hasListener(eventClass);
+    }
+
     /**
      * 获取已注册的监听器数量
      * 
      * @return 监听器数量
      */
-    public int getListenerCount() {
+    public synchronized int getListenerCount() {
         return listeners.values().stream().mapToInt(List::size).sum();
     }
 
     /**
-     * 检查是否有事件监听器注册
+     * 检查发布该类型的事件时是否有监听器会收到（包括父类与接口上的订阅）
      * 
      * @param eventClass 事件类型
-     * @return 如果已注册返回true
+     * @return 如果有监听器返回true
      */
     public boolean hasListener(Class<? extends Event> eventClass) {
-        List<IEventListener<? extends Event>> listenerList = listeners.get(eventClass);
-        return listenerList != null && !listenerList.isEmpty();
+        return dispatchTable(eventClass).length > 0;
+    }
+
+    /**
+     * 订阅记录：监听器 + 分发方式，异步邮箱按需创建
+     */
+    private final class Subscription {
+        private final IEventListener<Object> listener;
+        private final boolean async;
+        private volatile Mailbox mailbox;
+
+        private Subscription(IEventListener<Object> listener, boolean async) {
+            this.listener = listener;
+            this.async = async;
+        }
+
+        private Mailbox mailbox() {
+            Mailbox m = mailbox;
+            if (m == null) {
+                synchronized (this) {
+                    m = mailbox;
+                    if (m == null) {
+                        m = new Mailbox(listener);
+                        mailboxes.add(m);
+                        mailbox = m;
+                    }
+                }
+            }
+            return m;
+        }
+    }
+
+    /**
+     * 监听器邮箱：有界队列 + 单一排空任务，保证同一监听器的事件按序处理
+     */
+    private final class Mailbox implements Runnable {
+        private final IEventListener<Object> listener;
+        private final BlockingQueue<Event> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile Thread drainer;
+
+        private Mailbox(IEventListener<Object> listener) {
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void enqueue(Event event) {
+            // 已关闭，或监听器在处理事件时向自己发布事件（队列满时会自锁）：直接同步处理
+            if (shutdown || Thread.currentThread() == drainer) {
+                deliver(listener, event);
+                return;
+            }
+            try {
+                queue.put(event); // 队列满时阻塞发布方（背压）
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                deliver(listener, event);
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    asyncExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // 执行器已关闭：在当前线程排空
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            drainer = Thread.currentThread();
+            try {
+                Event event;
+                while ((event = queue.poll()) != null) {
+                    deliver(listener, event);
+                }
+            } finally {
+                drainer = null;
+                scheduled.set(false);
+                // 释放标志后再检查一次，避免遗漏退出前刚入队的事件
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private boolean isIdle() {
+            return queue.isEmpty() && !scheduled.get();
+        }
+
+        private boolean isDrainedBy(Thread thread) {
+            return drainer == thread;
+        }
     }
 }
@@ -5,10 +5,10 @@ package org.ztglab.event;
  * 
  * 各个模块实现此接口来监听感兴趣的事件
  * 
- * @param <T> 事件类型，必须继承Event
+ * @param <T> 事件类型：Event 的子类，或事件实现的接口（用于按接口订阅）
  */
 @FunctionalInterface
-public interface IEventListener<T extends Event> {
+public interface IEventListener<T> {
 
     /**
      * 处理事件
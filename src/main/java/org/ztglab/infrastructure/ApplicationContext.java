@@ -4,6 +4,11 @@ import org.ztglab.command.CommandBus;
 import org.ztglab.event.EventBus;
 import org.ztglab.event.events.*;
 
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 应用上下文 - 管理全局基础设施组件
  * 
@@ -12,36 +17,127 @@ import org.ztglab.event.events.*;
  * 2. 初始化和管理命令总线
  * 3. 初始化和管理日志服务
  * 4. 初始化和管理统计服务
- * 5. 配置事件监听器
+ * 5. 初始化和管理后台拼写检查服务
+ * 6. 初始化和管理命令耗时指标服务
+ * 7. 初始化和管理自动保存服务
+ * 8. 初始化和管理工作区内存管理
+ * 9. 配置事件监听器（含退出时异步事件的排空）
  * 
  * 采用单例模式，确保全局只有一个实例
  */
 public class ApplicationContext {
     
     private static ApplicationContext instance;
+
+    // 异步事件分发线程数（系统属性），未设置或<=0时使用虚拟线程
+    private static final String EVENT_THREADS_PROPERTY = "ztglab.event.threads";
+    // 退出时等待异步事件处理完毕的最长时间
+    private static final long EVENT_DRAIN_TIMEOUT_SECONDS = 5;
+    // 命令统计定期导出的文件与间隔（系统属性），未设置文件时不导出
+    private static final String METRICS_FILE_PROPERTY = "ztglab.metrics.file";
+    private static final String METRICS_INTERVAL_PROPERTY = "ztglab.metrics.interval";
+    private static final long DEFAULT_METRICS_INTERVAL_SECONDS = 60;
+    // 日志每批写入后是否 force() 落盘（系统属性）
+    private static final String LOG_FORCE_PROPERTY = "ztglab.log.force";
+    // 异步日志模式及队列满时的策略（BLOCK / DROP / SAMPLE）
+    private static final String LOG_ASYNC_PROPERTY = "ztglab.log.async";
+    private static final String LOG_OVERFLOW_PROPERTY = "ztglab.log.overflow";
+    // 保存文件时是否 force() 落盘后再替换目标文件
+    private static final String SAVE_FORCE_PROPERTY = "ztglab.save.force";
+    // 日志目录，未设置时为工作目录下的 log 文件夹
+    private static final String LOG_DIR_PROPERTY = "ztglab.log.dir";
+    // 日志格式（TEXT / BINARY / BOTH）
+    private static final String LOG_FORMAT_PROPERTY = "ztglab.log.format";
+    // 日志轮转：当前文件大小上限（字节）、时间跨度上限（小时）、保留分段个数，<=0 表示不按该条件轮转
+    private static final String LOG_MAX_BYTES_PROPERTY = "ztglab.log.maxBytes";
+    private static final String LOG_MAX_AGE_HOURS_PROPERTY = "ztglab.log.maxAgeHours";
+    private static final String LOG_RETAIN_PROPERTY = "ztglab.log.retain";
+    // 自动保存：恢复目录与写入间隔（秒），间隔<=0 表示关闭自动保存
+    private static final String AUTOSAVE_DIR_PROPERTY = "ztglab.autosave.dir";
+    private static final String AUTOSAVE_INTERVAL_PROPERTY = "ztglab.autosave.interval";
+    // 已加载文档的内存预算（字节），<=0 表示不限制，未设置时为最大堆的四分之一
+    private static final String MEMORY_BUDGET_PROPERTY = "ztglab.memory.budget";
     
     private final EventBus eventBus;
     private final CommandBus commandBus;
     private final LoggingService loggingService;
     private final StatisticsService statisticsService;
+    private final SpellCheckService spellCheckService;
+    private final MetricsService metricsService;
+    private final AutosaveService autosaveService;
+    private final WorkspaceMemoryManager memoryManager;
+    // 面向用户的输出（默认按命令批量缓冲），可替换
+    private volatile OutputSink output = new BufferedOutputSink();
     
     /**
      * 私有构造函数，初始化所有基础设施组件
      */
     private ApplicationContext() {
         // 1. 初始化事件总线
-        this.eventBus = new EventBus();
+        this.eventBus = createEventBus();
         
         // 2. 初始化命令总线（注入事件总线）
         this.commandBus = new CommandBus(eventBus);
         
         // 3. 初始化日志服务
         this.loggingService = new LoggingService();
+        String logDir = System.getProperty(LOG_DIR_PROPERTY);
+        if (logDir != null && !logDir.isBlank()) {
+            loggingService.setLogDirectory(Paths.get(logDir));
+        }
+        if (Boolean.getBoolean(LOG_FORCE_PROPERTY)) {
+            loggingService.getWriter().setForcePolicy(LogFileWriter.ForcePolicy.ON_FLUSH);
+        }
+        String logFormat = System.getProperty(LOG_FORMAT_PROPERTY);
+        if (logFormat != null) {
+            loggingService.setFormat(LoggingService.LogFormat.valueOf(logFormat.trim().toUpperCase()));
+        }
+        LogFileWriter.RotationPolicy rotation = LogFileWriter.RotationPolicy.DEFAULT;
+        loggingService.getWriter().setRotationPolicy(new LogFileWriter.RotationPolicy(
+                Long.getLong(LOG_MAX_BYTES_PROPERTY, rotation.maxBytes()),
+                TimeUnit.HOURS.toMillis(Long.getLong(LOG_MAX_AGE_HOURS_PROPERTY,
+                        TimeUnit.MILLISECONDS.toHours(rotation.maxAgeMillis()))),
+                Integer.getInteger(LOG_RETAIN_PROPERTY, rotation.retainSegments())));
+        if (Boolean.getBoolean(LOG_ASYNC_PROPERTY)) {
+            loggingService.setAsync(true);
+            String overflow = System.getProperty(LOG_OVERFLOW_PROPERTY);
+            if (overflow != null) {
+                loggingService.getAsyncPipeline().setOverflowPolicy(
+                        AsyncLogPipeline.OverflowPolicy.valueOf(overflow.trim().toUpperCase()));
+            }
+        }
+
+        // 保存策略
+        FileUtil.setForceOnSave(Boolean.getBoolean(SAVE_FORCE_PROPERTY));
 
         // 4. 初始化统计服务
         this.statisticsService = new StatisticsService();
+
+        // 5. 初始化后台拼写检查服务
+        this.spellCheckService = new SpellCheckService();
+
+        // 6. 初始化指标服务
+        this.metricsService = new MetricsService();
+        String metricsFile = System.getProperty(METRICS_FILE_PROPERTY);
+        if (metricsFile != null && !metricsFile.isBlank()) {
+            metricsService.startPeriodicDump(Paths.get(metricsFile),
+                    Long.getLong(METRICS_INTERVAL_PROPERTY, DEFAULT_METRICS_INTERVAL_SECONDS));
+        }
+        
+        // 7. 初始化自动保存服务
+        String autosaveDir = System.getProperty(AUTOSAVE_DIR_PROPERTY);
+        this.autosaveService = (autosaveDir == null || autosaveDir.isBlank())
+                ? new AutosaveService() : new AutosaveService(Paths.get(autosaveDir));
+        long autosaveInterval = Long.getLong(AUTOSAVE_INTERVAL_PROPERTY, AutosaveService.DEFAULT_INTERVAL_SECONDS);
+        if (autosaveInterval > 0) {
+            autosaveService.start(autosaveInterval);
+        }
+        
+        // 8. 初始化工作区内存管理
+        this.memoryManager = new WorkspaceMemoryManager(
+                Long.getLong(MEMORY_BUDGET_PROPERTY, WorkspaceMemoryManager.DEFAULT_BUDGET_BYTES));
         
-        // 5. 配置事件监听器
+        // 9. 配置事件监听器
         configureEventListeners();
     }
     
@@ -57,8 +153,12 @@ public class ApplicationContext {
     
     /**
      * 配置事件监听器
-     * 注册日志服务到事件总线，监听所有命令相关事件
+     * 注册日志服务到事件总线，监听所有命令相关事件与文档/工作区关闭事件
      * 注册统计服务到事件总线，监听活动文档切换事件
+     * 注册拼写检查服务到事件总线，监听编辑命令完成与文档生命周期事件
+     * 注册指标服务到事件总线，监听命令完成/失败事件
+     * 注册自动保存服务到事件总线，监听命令完成/失败与文档/工作区关闭事件
+     * 注册内存管理到事件总线，监听命令完成/失败事件
      */
     private void configureEventListeners() {
         // 注册日志服务
@@ -68,12 +168,57 @@ public class ApplicationContext {
         eventBus.subscribe(CommandFailedEvent.class, loggingService::onEvent);
         eventBus.subscribe(ActiveDocumentChangedEvent.class, loggingService::onEvent);
         eventBus.subscribe(DocumentPathUpdatedEvent.class, loggingService::onEvent);
+        eventBus.subscribe(DocumentClosedEvent.class, loggingService::onEvent);
+        eventBus.subscribe(WorkspaceClosingEvent.class, loggingService::onEvent);
         
         // 注册统计服务
         eventBus.subscribe(ActiveDocumentChangedEvent.class, statisticsService::onEvent);
         eventBus.subscribe(DocumentOpenedEvent.class, statisticsService::onEvent);
         eventBus.subscribe(DocumentClosedEvent.class, statisticsService::onEvent);
         eventBus.subscribe(WorkspaceClosingEvent.class, statisticsService::onEvent);
+
+        // 注册拼写检查服务
+        eventBus.subscribe(ActiveDocumentChangedEvent.class, spellCheckService::onEvent);
+        eventBus.subscribe(CommandCompletedEvent.class, spellCheckService::onEvent);
+        eventBus.subscribe(DocumentClosedEvent.class, spellCheckService::onEvent);
+        eventBus.subscribe(DocumentPathUpdatedEvent.class, spellCheckService::onEvent);
+        eventBus.subscribe(WorkspaceClosingEvent.class, spellCheckService::onEvent);
+
+        // 注册指标服务
+        eventBus.subscribe(CommandCompletedEvent.class, metricsService::onEvent);
+        eventBus.subscribe(CommandFailedEvent.class, metricsService::onEvent);
+        eventBus.subscribe(WorkspaceClosingEvent.class, metricsService::onEvent);
+
+        // 注册自动保存服务
+        eventBus.subscribe(CommandCompletedEvent.class, autosaveService::onEvent);
+        eventBus.subscribe(CommandFailedEvent.class, autosaveService::onEvent);
+        eventBus.subscribe(DocumentClosedEvent.class, autosaveService::onEvent);
+        eventBus.subscribe(DocumentPathUpdatedEvent.class, autosaveService::onEvent);
+        eventBus.subscribe(WorkspaceClosingEvent.class, autosaveService::onEvent);
+
+        // 注册内存管理（在自动保存之后：自动保存取快照时文档内容仍在内存中）
+        eventBus.subscribe(CommandCompletedEvent.class, memoryManager::onEvent);
+        eventBus.subscribe(CommandFailedEvent.class, memoryManager::onEvent);
+
+        // 最后注册：工作区关闭时排空异步事件队列并关闭分发执行器
+        eventBus.subscribe(WorkspaceClosingEvent.class,
+                event -> eventBus.shutdown(EVENT_DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 创建事件总线：根据配置选择虚拟线程或有界线程池作为异步分发执行器
+     */
+    private static EventBus createEventBus() {
+        int threads = Integer.getInteger(EVENT_THREADS_PROPERTY, 0);
+        if (threads <= 0) {
+            return new EventBus();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "event-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new EventBus(pool, EventBus.DEFAULT_QUEUE_CAPACITY);
     }
     
     /**
@@ -103,6 +248,61 @@ public class ApplicationContext {
     public StatisticsService getStatisticsService() {
         return statisticsService;
     }
+
+    /**
+     * 获取拼写检查服务
+     */
+    public SpellCheckService getSpellCheckService() {
+        return spellCheckService;
+    }
+    
+    /**
+     * 获取指标服务
+     */
+    public MetricsService getMetricsService() {
+        return metricsService;
+    }
+    
+    /**
+     * 获取自动保存服务
+     */
+    public AutosaveService getAutosaveService() {
+        return autosaveService;
+    }
+    
+    /**
+     * 获取工作区内存管理
+     */
+    public WorkspaceMemoryManager getMemoryManager() {
+        return memoryManager;
+    }
+    
+    /**
+     * 获取输出接口
+     */
+    public OutputSink getOutput() {
+        return output;
+    }
+
+    /**
+     * 获取当前的输出接口（各模块统一通过此方法输出，便于替换）
+     */
+    public static OutputSink output() {
+        return getInstance().getOutput();
+    }
+
+    /**
+     * 替换输出接口（批处理、测试或服务端模式）
+     *
+     * @param output 新的输出接口
+     */
+    public void setOutput(OutputSink output) {
+        if (output == null) {
+            throw new IllegalArgumentException("输出接口不能为null");
+        }
+        this.output.flush();
+        this.output = output;
+    }
     
     /**
      * 重置单例（用于测试）
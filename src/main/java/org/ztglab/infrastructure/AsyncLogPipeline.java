@@ -0,0 +1,314 @@
+package org.ztglab.infrastructure;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志管道 - 命令线程只把日志记录放入无锁队列，由单一写线程批量写盘
+ *
+ * 工作方式：
+ * 1. submit 把 (日志文件, 行) 放入无锁队列后立即返回，不做任何磁盘操作
+ * 2. 写线程按批取出记录交给 LogFileWriter，由其按大小/时间刷新
+ * 3. drain 等待此前提交的记录全部写出并刷新，用于读日志和关闭文件
+ * 4. close 写完队列中的记录并停止写线程，写线程退出后提交的记录在提交方线程上同步写入
+ *    （写线程退出前队列始终只由它写出，调用方不会与它并发取记录而打乱顺序）
+ *
+ * 队列有容量上限，满时的处理策略：
+ * - BLOCK：提交方等待写线程腾出空间（不丢日志）
+ * - DROP：丢弃新记录
+ * - SAMPLE：每 sampleRate 条只保留一条，其余丢弃
+ * 丢弃条数可通过 getDroppedCount 查看。二进制日志记录不会被丢弃（见 submit(Path, byte[], boolean)）。
+ */
+public class AsyncLogPipeline {
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP,
+        SAMPLE
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+    // 写线程每批最多处理的记录数
+    private static final int BATCH_SIZE = 256;
+    // 写线程空闲时的等待时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final LogFileWriter writer;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<LogRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // 已提交与已写出的记录数，drain 据此判断是否写完
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong overflowCounter = new AtomicLong();
+
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile Thread writerThread;
+    private volatile boolean closed;
+    // 写线程已退出：之后队列由调用方线程写出（在 this 上同步修改和读取）
+    private boolean writerExited;
+
+    public AsyncLogPipeline(LogFileWriter writer) {
+        this(writer, DEFAULT_CAPACITY);
+    }
+
+    public AsyncLogPipeline(LogFileWriter writer, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0");
+        }
+        this.writer = writer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 设置队列满时的处理策略
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.BLOCK : overflowPolicy;
+    }
+
+    /**
+     * 设置 SAMPLE 策略下的采样间隔（每多少条保留一条）
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * 提交一条日志记录
+     *
+     * @return 记录被接受返回true，被丢弃返回false
+     */
+    public boolean submit(Path path, String line) {
+        return submit(new LogRecord(path, line, null, false));
+    }
+
+    /**
+     * 提交一段原始字节（二进制日志）
+     * 二进制记录依赖之前的记录（文件头、会话、命令名定义、时间差），丢弃任何一条都会让
+     * 之后的记录无法正确读取，因此不受 DROP / SAMPLE 策略影响，队列满时总是等待空间。
+     *
+     * @param newSegment 这段字节是新分段的开头（见 LogFileWriter.appendBytes）
+     * @return 总是返回true
+     */
+    public boolean submit(Path path, byte[] bytes, boolean newSegment) {
+        return submit(new LogRecord(path, null, bytes, newSegment));
+    }
+
+    private boolean submit(LogRecord record) {
+        if (size.get() >= capacity && !admitOnOverflow(record.bytes() != null)) {
+            dropped.increment();
+            return false;
+        }
+        queue.offer(record);
+        size.incrementAndGet();
+        submitted.incrementAndGet();
+        if (closed) {
+            // 写线程已退出时由提交方自己写出，否则交给尚未退出的写线程
+            writeOrHandOff();
+            return true;
+        }
+        wakeWriter();
+        return true;
+    }
+
+    /**
+     * 队列已满时是否仍接受记录（BLOCK 策略会等待空间）
+     *
+     * @param mustAdmit 不允许丢弃的记录（二进制日志），按 BLOCK 处理
+     */
+    private boolean admitOnOverflow(boolean mustAdmit) {
+        if (closed) {
+            return true; // 关闭后同步写入，不会积压
+        }
+        switch (mustAdmit ? OverflowPolicy.BLOCK : overflowPolicy) {
+            case DROP:
+                return false;
+            case SAMPLE:
+                return overflowCounter.incrementAndGet() % sampleRate == 0;
+            case BLOCK:
+            default:
+                while (size.get() >= capacity) {
+                    wakeWriter();
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+                return true;
+        }
+    }
+
+    /**
+     * 等待此前提交的记录全部写出，并把缓冲区写入文件
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 在超时前写完返回true
+     */
+    public boolean drain(long timeout, TimeUnit unit) {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written.get() < target) {
+            if (Thread.currentThread() == writerThread) {
+                break;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        writer.flushAll();
+        return true;
+    }
+
+    /**
+     * 写完队列中的记录并停止写线程（重复调用无副作用）
+     * 关闭后仍可提交，写线程退出后记录在提交方线程上同步写入。
+     *
+     * @param timeout 等待写线程写完的最长时间
+     * @param unit 时间单位
+     * @return 在超时前由写线程写完返回true；超时时写线程仍负责写完剩余的记录
+     */
+    public boolean close(long timeout, TimeUnit unit) {
+        boolean drained = drain(timeout, unit);
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = writerThread;
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(Math.max(1, unit.toMillis(timeout)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeOrHandOff();
+        writer.flushAll();
+        return drained;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 被丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 队列中等待写出的记录数
+     */
+    public int getPendingCount() {
+        return size.get();
+    }
+
+    private void wakeWriter() {
+        Thread thread = writerThread;
+        if (thread == null) {
+            thread = startWriter();
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread); // 已关闭时没有写线程
+        }
+    }
+
+    private synchronized Thread startWriter() {
+        if (writerThread == null && !closed) {
+            Thread thread = new Thread(this::writeLoop, "log-writer");
+            thread.setDaemon(true);
+            writerThread = thread;
+            thread.start();
+        }
+        return writerThread;
+    }
+
+    /**
+     * 写线程：批量取出记录写入 LogFileWriter，没有记录时短暂等待，关闭且队列为空时退出
+     * 退出前在锁内确认队列为空并标记 writerExited，此后提交的记录由提交方写出，不会遗留在队列中。
+     */
+    private void writeLoop() {
+        while (true) {
+            if (writeBatch() == 0) {
+                if (closed) {
+                    synchronized (this) {
+                        if (queue.isEmpty()) {
+                            writerExited = true;
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * 关闭之后写出队列：写线程已退出（或从未启动）时在当前线程写出，
+     * 否则队列仍归写线程所有，只唤醒它，避免两个线程同时取记录导致乱序
+     */
+    private void writeOrHandOff() {
+        Thread thread;
+        synchronized (this) {
+            thread = writerExited ? null : writerThread;
+            if (thread == null) {
+                writeAll();
+                return;
+            }
+        }
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * 在当前线程写出队列中的所有记录（仅在写线程退出后、持有 this 锁时调用）
+     */
+    private void writeAll() {
+        while (writeBatch() > 0) {
+            // 继续下一批
+        }
+    }
+
+    /**
+     * 取出一批记录写入 LogFileWriter
+     *
+     * @return 本批写出的记录数
+     */
+    private int writeBatch() {
+        int count = 0;
+        LogRecord record;
+        while (count < BATCH_SIZE && (record = queue.poll()) != null) {
+            size.decrementAndGet();
+            try {
+                if (record.bytes() != null) {
+                    writer.appendBytes(record.path(), record.bytes(), record.newSegment());
+                } else {
+                    writer.appendLine(record.path(), record.line());
+                }
+            } catch (IOException e) {
+                System.err.println("[log warn] 写入日志失败: " + e.getMessage());
+            }
+            written.incrementAndGet();
+            count++;
+        }
+        return count;
+    }
+
+    private record LogRecord(Path path, String line, byte[] bytes, boolean newSegment) {
+    }
+}
@@ -0,0 +1,288 @@
+package org.ztglab.infrastructure;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.ztglab.event.events.*;
+import org.ztglab.workspace.Document;
+import org.ztglab.workspace.Workspace;
+
+/**
+ * 自动保存服务：定期把未保存文档的内容写入恢复目录，进程异常退出后可用 recover 命令找回
+ *
+ * 工作方式：
+ * 1. 每条命令结束时（命令线程上）检查各文档的版本号，有变化的已修改文档取一份写时复制快照，
+ *    取快照不复制内容，不阻塞编辑
+ * 2. 后台线程按固定间隔把最新的快照写入恢复文件（临时文件 + 原子替换），同一文档只写最新版本
+ * 3. 文档保存或关闭后删除其恢复文件；正常退出时清空恢复目录
+ *
+ * 恢复文件：第一行为文档路径，第二行为快照版本号，其后为文档内容。
+ * 文件名由文档路径生成，同一文档总是写到同一个文件。
+ */
+public class AutosaveService {
+
+    // 默认恢复目录（相对于工作目录）
+    public static final String DEFAULT_DIRECTORY = ".recovery";
+    // 默认写入间隔（秒）
+    public static final long DEFAULT_INTERVAL_SECONDS = 30;
+
+    private static final String SUFFIX = ".rec";
+
+    private final Path directory;
+    // 文件路径 -> 等待写入的快照；DELETE 表示删除恢复文件（由命令线程放入、后台线程取出）
+    private final Map<String, Document.Snapshot> pending = new ConcurrentHashMap<>();
+    // 文件路径 -> 最近一次检查时的文档、版本号与修改状态（只在命令线程上访问）
+    private final Map<String, Captured> captured = new HashMap<>();
+
+    private static final Document.Snapshot DELETE = new Document.Snapshot(-1, List.of());
+
+    private Workspace workspace;
+    private ScheduledExecutorService scheduler;
+
+    private record Captured(Document document, long version, boolean modified) {
+
+        static Captured of(Document doc) {
+            return new Captured(doc, doc.getVersion(), doc.isModified());
+        }
+
+        boolean matches(Document doc) {
+            return document == doc && version == doc.getVersion() && modified == doc.isModified();
+        }
+    }
+
+    /**
+     * 恢复文件中的一个文档
+     *
+     * @param filePath 文档路径
+     * @param version 快照时的版本号
+     * @param content 文档内容
+     */
+    public record Recovered(String filePath, long version, String content) {
+    }
+
+    public AutosaveService() {
+        this(Path.of(System.getProperty("user.dir"), DEFAULT_DIRECTORY));
+    }
+
+    public AutosaveService(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 获取恢复目录
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 设置工作区，并把其中现有文档的当前版本记为基准
+     * （启动时从磁盘恢复的文档未经编辑，不会覆盖上次会话留下的恢复文件）
+     */
+    public void setWorkspace(Workspace workspace) {
+        this.workspace = workspace;
+        captured.clear();
+        if (workspace != null) {
+            for (Document doc : workspace.getDocuments().values()) {
+                captured.put(doc.getFilePath(), Captured.of(doc));
+            }
+        }
+    }
+
+    /**
+     * 启动后台定期写入
+     *
+     * @param intervalSeconds 写入间隔（秒）
+     */
+    public synchronized void start(long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("自动保存间隔必须大于0");
+        }
+        stop();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止后台定期写入（尚未写入的快照保留，可手动 flush）
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 为版本有变化的已修改文档取快照；已保存的文档安排删除恢复文件
+     * 应在命令线程上调用（文档不是线程安全的）
+     */
+    public void capture() {
+        Workspace ws = this.workspace;
+        if (ws == null) {
+            return;
+        }
+        for (Document doc : ws.getDocuments().values()) {
+            String path = doc.getFilePath();
+            Captured last = captured.get(path);
+            if (last != null && last.matches(doc)) {
+                continue;
+            }
+            captured.put(path, Captured.of(doc));
+            if (doc.isModified()) {
+                pending.put(path, doc.snapshot());
+            } else if (last != null && last.modified) {
+                pending.put(path, DELETE); // 已保存
+            }
+        }
+    }
+
+    /**
+     * 放弃文档的恢复文件（文档关闭或改名后）
+     */
+    public void discard(String filePath) {
+        captured.remove(filePath);
+        pending.put(filePath, DELETE);
+    }
+
+    /**
+     * 把等待中的快照写入恢复目录
+     */
+    public synchronized void flush() {
+        for (String path : pending.keySet()) {
+            Document.Snapshot snapshot = pending.remove(path);
+            if (snapshot == null) {
+                continue;
+            }
+            Path file = recoveryFile(path);
+            try {
+                if (snapshot == DELETE) {
+                    Files.deleteIfExists(file);
+                } else {
+                    FileUtil.writeAtomically(file, writer -> {
+                        writer.write(path);
+                        writer.write('\n');
+                        writer.write(Long.toString(snapshot.version()));
+                        writer.write('\n');
+                        snapshot.writeTo(writer);
+                    });
+                }
+            } catch (IOException e) {
+                System.err.println("[autosave warn] 写入恢复文件失败: " + path + " - " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取恢复目录中的所有文档（无法解析的文件跳过）
+     */
+    public List<Recovered> listRecoverable() {
+        List<Recovered> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String path = reader.readLine();
+                    String version = reader.readLine();
+                    if (path == null || version == null) {
+                        continue;
+                    }
+                    StringBuilder content = new StringBuilder();
+                    char[] buffer = new char[8192];
+                    int n;
+                    while ((n = reader.read(buffer)) > 0) {
+                        content.append(buffer, 0, n);
+                    }
+                    result.add(new Recovered(path, Long.parseLong(version.trim()), content.toString()));
+                } catch (IOException | NumberFormatException e) {
+                    System.err.println("[autosave warn] 无法读取恢复文件: " + file + " - " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[autosave warn] 无法读取恢复目录: " + directory + " - " + e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 删除恢复目录中的所有恢复文件
+     */
+    public synchronized void clear() {
+        pending.clear();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("[autosave warn] 清理恢复目录失败: " + directory + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * 文档路径对应的恢复文件
+     */
+    Path recoveryFile(String filePath) {
+        String name = UUID.nameUUIDFromBytes(filePath.getBytes(StandardCharsets.UTF_8)).toString();
+        return directory.resolve(name + SUFFIX);
+    }
+
+    // ==================== 事件监听器实现 ====================
+
+    /**
+     * 处理命令完成事件：为有变化的文档取快照
+     */
+    public void onEvent(CommandCompletedEvent event) {
+        capture();
+    }
+
+    /**
+     * 处理命令失败事件：失败的命令也可能已改动文档
+     */
+    public void onEvent(CommandFailedEvent event) {
+        capture();
+    }
+
+    /**
+     * 处理文档关闭事件：关闭即放弃未保存的修改，删除恢复文件
+     */
+    public void onEvent(DocumentClosedEvent event) {
+        discard(event.getFilePath());
+    }
+
+    /**
+     * 处理文档路径更新事件（另存为）：旧路径的恢复文件不再需要
+     */
+    public void onEvent(DocumentPathUpdatedEvent event) {
+        discard(event.getOldPath());
+    }
+
+    /**
+     * 处理工作区关闭事件：正常退出时未保存的修改由用户决定取舍，清空恢复目录
+     */
+    public void onEvent(WorkspaceClosingEvent event) {
+        stop();
+        clear();
+    }
+}
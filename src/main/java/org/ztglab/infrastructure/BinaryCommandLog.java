@@ -0,0 +1,374 @@
+package org.ztglab.infrastructure;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 二进制命令日志 - 紧凑的结构化日志格式，可被 log-replay 回放
+ *
+ * 文件格式：
+ *   文件头  "ZTGB" + 版本号(1字节)
+ *   记录    varint(记录体长度) + 记录体
+ * 记录体第一个字节为类型：
+ *   SESSION  varint(绝对时间毫秒)                          - 会话开始，清空命令名表并设置时间基准
+ *   NAME     varint(编号) + 字符串(命令名)                 - 定义命令名，编号按出现顺序递增
+ *   COMMAND  zigzag varint(距上一条的毫秒) + varint(命令名编号) + 字符串(参数)
+ *   FAILED   同 COMMAND，再跟一个字符串(错误信息)
+ * 字符串为 varint(UTF-8 字节数) + 字节。
+ *
+ * 命令名在每个会话内只写一次，之后用编号引用；时间写成与上一条的差值，通常只占1~2字节。
+ * 记录带长度前缀，读取时可跳过未知类型；文件末尾不完整的记录（如写入中途崩溃）被忽略。
+ */
+public final class BinaryCommandLog {
+
+    static final byte[] MAGIC = {'Z', 'T', 'G', 'B', 1};
+
+    private static final int TYPE_SESSION = 1;
+    private static final int TYPE_NAME = 2;
+    private static final int TYPE_COMMAND = 3;
+    private static final int TYPE_FAILED = 4;
+
+    private BinaryCommandLog() {
+    }
+
+    /**
+     * 日志记录
+     *
+     * @param epochMillis 记录时间
+     * @param name 命令名（SESSION 记录为null）
+     * @param args 原始参数
+     * @param error 失败原因，成功的命令为null
+     */
+    public record Record(long epochMillis, String name, String args, String error) {
+
+        public boolean isSession() {
+            return name == null;
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+    }
+
+    /**
+     * 单个日志文件的编码器，保存命令名表和上一条记录的时间（非线程安全，由调用方同步）
+     *
+     * 同时记录当前分段已编码的字节数和开始时间，供调用方按轮转策略决定何时开始新分段：
+     * 新分段以文件头和会话记录开始，命令名表重新建立，每个分段都可以单独读取。
+     */
+    public static final class Encoder {
+        private final Map<String, Integer> names = new HashMap<>();
+        private long lastMillis;
+        private boolean needHeader;
+        private boolean sessionStarted;
+        // 当前分段的长度（含文件中已有的内容）与开始时间
+        private long segmentBytes;
+        private long segmentStartMillis;
+
+        /**
+         * @param emptyFile 目标文件为空或不存在时需要写文件头
+         */
+        public Encoder(boolean emptyFile) {
+            this(emptyFile ? 0 : MAGIC.length, System.currentTimeMillis());
+        }
+
+        /**
+         * @param existingBytes 目标文件中已有的字节数，0 表示需要写文件头
+         * @param startMillis 已有内容的开始时间（目标文件为空时被第一条会话记录的时间取代）
+         */
+        public Encoder(long existingBytes, long startMillis) {
+            this.needHeader = existingBytes == 0;
+            this.segmentBytes = existingBytes;
+            this.segmentStartMillis = startMillis;
+        }
+
+        /**
+         * 开始新的分段：下一条编码结果以文件头和会话记录开始
+         */
+        public void startSegment() {
+            needHeader = true;
+            sessionStarted = false;
+            segmentBytes = 0;
+        }
+
+        /**
+         * 当前分段已编码的字节数
+         */
+        public long getSegmentBytes() {
+            return segmentBytes;
+        }
+
+        /**
+         * 当前分段的开始时间
+         */
+        public long getSegmentStartMillis() {
+            return segmentStartMillis;
+        }
+
+        /**
+         * 编码一条命令记录（必要时带上文件头、会话开始和命令名定义）
+         *
+         * @param error 失败原因，成功时为null
+         */
+        public byte[] encodeCommand(long epochMillis, String name, String args, String error) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(32 + (args == null ? 0 : args.length()));
+            startSession(out, epochMillis);
+            Integer id = names.get(name);
+            if (id == null) {
+                id = names.size();
+                names.put(name, id);
+                Body body = new Body();
+                body.write(TYPE_NAME);
+                body.writeVarint(id);
+                body.writeString(name);
+                body.writeTo(out);
+            }
+            Body body = new Body();
+            body.write(error == null ? TYPE_COMMAND : TYPE_FAILED);
+            body.writeVarint(zigzag(epochMillis - lastMillis));
+            body.writeVarint(id);
+            body.writeString(args == null ? "" : args);
+            if (error != null) {
+                body.writeString(error);
+            }
+            body.writeTo(out);
+            lastMillis = epochMillis;
+            segmentBytes += out.size();
+            return out.toByteArray();
+        }
+
+        /**
+         * 编码会话开始记录
+         */
+        public byte[] encodeSession(long epochMillis) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+            sessionStarted = false;
+            startSession(out, epochMillis);
+            segmentBytes += out.size();
+            return out.toByteArray();
+        }
+
+        private void startSession(ByteArrayOutputStream out, long epochMillis) {
+            if (needHeader) {
+                out.writeBytes(MAGIC);
+                needHeader = false;
+                segmentStartMillis = epochMillis;
+            }
+            if (sessionStarted) {
+                return;
+            }
+            names.clear();
+            lastMillis = epochMillis;
+            Body body = new Body();
+            body.write(TYPE_SESSION);
+            body.writeVarint(epochMillis);
+            body.writeTo(out);
+            sessionStarted = true;
+        }
+    }
+
+    /**
+     * 顺序读取日志文件中的所有记录
+     *
+     * @throws IOException 文件头不正确或读取失败
+     */
+    public static void read(Path path, Consumer<Record> visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            byte[] header = new byte[MAGIC.length];
+            try {
+                in.readFully(header);
+            } catch (EOFException e) {
+                return; // 空文件
+            }
+            if (!Arrays.equals(header, MAGIC)) {
+                throw new IOException("不是二进制命令日志: " + path);
+            }
+
+            List<String> names = new ArrayList<>();
+            long lastMillis = 0;
+            while (true) {
+                byte[] body;
+                try {
+                    long length = readVarint(in);
+                    if (length > Integer.MAX_VALUE) {
+                        return;
+                    }
+                    body = new byte[(int) length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    return; // 文件结束，或最后一条记录不完整
+                }
+
+                Cursor cursor = new Cursor(body);
+                switch (cursor.readByte()) {
+                    case TYPE_SESSION -> {
+                        names.clear();
+                        lastMillis = cursor.readVarint();
+                        visitor.accept(new Record(lastMillis, null, null, null));
+                    }
+                    case TYPE_NAME -> {
+                        int id = (int) cursor.readVarint();
+                        String name = cursor.readString();
+                        if (id == names.size()) {
+                            names.add(name);
+                        }
+                    }
+                    case TYPE_COMMAND, TYPE_FAILED -> {
+                        boolean failed = body[0] == TYPE_FAILED;
+                        lastMillis += unzigzag(cursor.readVarint());
+                        int id = (int) cursor.readVarint();
+                        String args = cursor.readString();
+                        String error = failed ? cursor.readString() : null;
+                        if (id < names.size()) {
+                            visitor.accept(new Record(lastMillis, names.get(id), args, error));
+                        }
+                    }
+                    default -> {
+                        // 未知类型：按长度跳过
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 文件是否以二进制日志文件头开始
+     */
+    public static boolean isBinaryLog(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 从文件开头的字节中取出第一条会话记录的时间
+     *
+     * @param head 文件开头的若干字节（文件头 + 第一条记录）
+     * @return 会话开始时间（毫秒），不是二进制日志或第一条记录不是会话记录时返回-1
+     */
+    static long sessionMillis(byte[] head) {
+        if (head.length <= MAGIC.length || !Arrays.equals(head, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            return -1;
+        }
+        Cursor cursor = new Cursor(Arrays.copyOfRange(head, MAGIC.length, head.length));
+        try {
+            cursor.readVarint(); // 记录体长度
+            return cursor.readByte() == TYPE_SESSION ? cursor.readVarint() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 文件头长度（迁移时跳过源文件的文件头）
+     */
+    public static int headerLength() {
+        return MAGIC.length;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 过长");
+    }
+
+    /**
+     * 记录体缓冲区：写完后加上长度前缀输出
+     */
+    private static final class Body extends ByteArrayOutputStream {
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeTo(ByteArrayOutputStream out) {
+            long length = count;
+            while ((length & ~0x7FL) != 0) {
+                out.write((int) ((length & 0x7F) | 0x80));
+                length >>>= 7;
+            }
+            out.write((int) length);
+            out.write(buf, 0, count);
+        }
+    }
+
+    /**
+     * 记录体读取游标
+     */
+    private static final class Cursor {
+        private final byte[] bytes;
+        private int position;
+
+        Cursor(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            return position < bytes.length ? bytes[position++] : -1;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IOException("记录不完整");
+                }
+                int b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("varint 过长");
+        }
+
+        String readString() throws IOException {
+            int length = (int) readVarint();
+            if (length < 0 || position + length > bytes.length) {
+                throw new IOException("记录不完整");
+            }
+            String text = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return text;
+        }
+    }
+}
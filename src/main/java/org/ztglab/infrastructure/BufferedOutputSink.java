@@ -0,0 +1,78 @@
+package org.ztglab.infrastructure;
+
+import java.io.PrintStream;
+
+/**
+ * 批量缓冲的输出实现 - 输出先累积在内存中，flush 时一次性写出
+ *
+ * 命令执行器在每条命令结束时 flush，因此一条命令的所有输出只经过一次同步的 PrintStream 写入。
+ *
+ * 输出目标：
+ * 1. 无参构造：flush 时才取当前的 System.out / System.err（测试中替换全局流依然有效）
+ * 2. 指定目标流：写入给定的 PrintStream，不依赖全局流
+ * 3. discardInfo 为 true 时丢弃普通信息，只保留错误信息（批处理 quiet 模式）
+ */
+public class BufferedOutputSink implements OutputSink {
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final boolean discardInfo;
+
+    private final StringBuilder outBuffer = new StringBuilder();
+    private final StringBuilder errBuffer = new StringBuilder();
+
+    /**
+     * 写入当前的 System.out / System.err
+     */
+    public BufferedOutputSink() {
+        this(null, null, false);
+    }
+
+    /**
+     * 写入指定的输出流
+     *
+     * @param out 普通信息的目标，为null时使用 flush 时的 System.out
+     * @param err 错误信息的目标，为null时使用 flush 时的 System.err
+     * @param discardInfo 是否丢弃普通信息
+     */
+    public BufferedOutputSink(PrintStream out, PrintStream err, boolean discardInfo) {
+        this.out = out;
+        this.err = err;
+        this.discardInfo = discardInfo;
+    }
+
+    @Override
+    public synchronized void print(String text) {
+        if (!discardInfo) {
+            outBuffer.append(text);
+        }
+    }
+
+    @Override
+    public synchronized void println(String line) {
+        if (!discardInfo) {
+            outBuffer.append(line).append(System.lineSeparator());
+        }
+    }
+
+    @Override
+    public synchronized void error(String line) {
+        errBuffer.append(line).append(System.lineSeparator());
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (outBuffer.length() > 0) {
+            PrintStream target = out != null ? out : System.out;
+            target.print(outBuffer);
+            target.flush();
+            outBuffer.setLength(0);
+        }
+        if (errBuffer.length() > 0) {
+            PrintStream target = err != null ? err : System.err;
+            target.print(errBuffer);
+            target.flush();
+            errBuffer.setLength(0);
+        }
+    }
+}
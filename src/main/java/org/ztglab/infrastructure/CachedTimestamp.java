@@ -0,0 +1,53 @@
+package org.ztglab.infrastructure;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 按秒缓存的时间戳字符串 - 同一秒内的所有调用复用同一个格式化结果
+ *
+ * 线程安全：缓存是一个不可变的 (秒, 字符串) 对象，通过 volatile 引用整体替换，
+ * 任意线程（命令线程、异步日志写线程）都可以并发调用，不需要加锁。
+ * 每秒最多格式化一次，日志热路径上只有一次时钟读取和一次比较。
+ */
+public final class CachedTimestamp {
+
+    private final DateTimeFormatter formatter;
+    private volatile Entry cached;
+
+    /**
+     * @param pattern 时间格式（精确到秒），使用系统默认时区
+     */
+    public CachedTimestamp(String pattern) {
+        this(pattern, ZoneId.systemDefault());
+    }
+
+    public CachedTimestamp(String pattern, ZoneId zone) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(zone);
+    }
+
+    /**
+     * 当前时间的格式化字符串
+     */
+    public String now() {
+        return format(System.currentTimeMillis());
+    }
+
+    /**
+     * 指定时间（毫秒）的格式化字符串，与缓存同一秒时直接复用
+     */
+    public String format(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000);
+        Entry entry = cached;
+        if (entry != null && entry.epochSecond == epochSecond) {
+            return entry.text;
+        }
+        String text = formatter.format(Instant.ofEpochSecond(epochSecond));
+        cached = new Entry(epochSecond, text);
+        return text;
+    }
+
+    private record Entry(long epochSecond, String text) {
+    }
+}
@@ -0,0 +1,113 @@
+package org.ztglab.infrastructure;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 命令名集合 - 构造时为给定的命令名寻找完美哈希，查找只探测一个槽位
+ *
+ * 集合不可变，元素很少（通常是文件头里的几个 -e 参数）：
+ * 构造时尝试不同的种子，直到所有名字落在不同槽位；尝试多次仍有冲突时把表扩大一倍。
+ * 查找时计算一次哈希、比较一次字符串，与集合大小无关。
+ */
+public final class CommandNameSet {
+
+    public static final CommandNameSet EMPTY = new CommandNameSet(new String[0], 0, 0);
+
+    // 每种表大小下尝试的种子个数
+    private static final int SEEDS_PER_SIZE = 64;
+
+    private final String[] table;
+    private final int seed;
+    private final int shift;
+
+    private CommandNameSet(String[] table, int seed, int shift) {
+        this.table = table;
+        this.seed = seed;
+        this.shift = shift;
+    }
+
+    /**
+     * 由命令名构造集合（忽略重复和空名字）
+     */
+    public static CommandNameSet of(Collection<String> names) {
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name != null && !name.isEmpty()) {
+                distinct.add(name);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return EMPTY;
+        }
+        List<String> keys = new ArrayList<>(distinct);
+
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(keys.size() * 2 - 1));
+        while (true) {
+            for (int attempt = 0; attempt < SEEDS_PER_SIZE; attempt++) {
+                int seed = 0x9E3779B9 * (attempt + 1);
+                String[] table = tryBuild(keys, seed, bits);
+                if (table != null) {
+                    return new CommandNameSet(table, seed, 32 - bits);
+                }
+            }
+            bits++;
+        }
+    }
+
+    private static String[] tryBuild(List<String> keys, int seed, int bits) {
+        String[] table = new String[1 << bits];
+        for (String key : keys) {
+            int slot = hash(key, seed) >>> (32 - bits);
+            if (table[slot] != null) {
+                return null;
+            }
+            table[slot] = key;
+        }
+        return table;
+    }
+
+    /**
+     * 带种子的字符串哈希（不能直接用 String.hashCode：哈希码相同的不同名字无论种子如何都会冲突）
+     */
+    private static int hash(String key, int seed) {
+        int h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * 是否包含该命令名
+     */
+    public boolean contains(String name) {
+        if (table.length == 0 || name == null) {
+            return false;
+        }
+        String candidate = table[hash(name, seed) >>> shift];
+        return candidate != null && candidate.equals(name);
+    }
+
+    /**
+     * 元素个数
+     */
+    public int size() {
+        int count = 0;
+        for (String name : table) {
+            if (name != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return table.length == 0;
+    }
+}
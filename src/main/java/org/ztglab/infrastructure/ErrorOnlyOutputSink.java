@@ -0,0 +1,36 @@
+package org.ztglab.infrastructure;
+
+/**
+ * 只保留错误信息的输出 - 丢弃普通信息，错误信息和 flush 交给被包装的输出
+ *
+ * 用于临时静默命令输出（如 log-replay --quiet）：错误仍然写到当前安装的输出，
+ * 不会绕过测试、批处理或服务端替换的目标。
+ */
+public class ErrorOnlyOutputSink implements OutputSink {
+
+    private final OutputSink delegate;
+
+    public ErrorOnlyOutputSink(OutputSink delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void print(String text) {
+        // 丢弃普通信息
+    }
+
+    @Override
+    public void println(String line) {
+        // 丢弃普通信息
+    }
+
+    @Override
+    public void error(String line) {
+        delegate.error(line);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+}
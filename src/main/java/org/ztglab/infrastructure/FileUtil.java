@@ -1,18 +1,45 @@
 package org.ztglab.infrastructure;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.ztglab.workspace.Document;
 
 /**
  * 文件工具类 - 负责文件的读写操作
+ *
+ * 保存采用"写临时文件 + 原子替换"：内容先逐行编码写入同目录下的临时文件，
+ * 写完后（可选 force 落盘）再用 ATOMIC_MOVE 替换目标文件。写入中途崩溃或磁盘写满时，
+ * 目标文件保持保存前的完整内容，不会出现半截文件。
  */
 public class FileUtil {
 
+    // 写临时文件的缓冲区大小
+    private static final int SAVE_BUFFER_SIZE = 64 * 1024;
+
+    // 保存时是否 force() 落盘后再替换
+    private static volatile boolean forceOnSave = false;
+
+    /**
+     * 设置保存时是否在替换前把临时文件 force() 到磁盘
+     */
+    public static void setForceOnSave(boolean force) {
+        forceOnSave = force;
+    }
+
+    public static boolean isForceOnSave() {
+        return forceOnSave;
+    }
+
     /**
      * 读取文件内容
      * @return 文件内容，如果文件不存在返回 null
@@ -26,20 +53,111 @@ public class FileUtil {
     }
 
     /**
-     * 保存Document到文件
+     * 保存Document到文件（原子替换）
      */
     public static void saveFile(String filepath, Document document) throws IOException {
-        Path path = Paths.get(filepath);
+        Path path = Paths.get(filepath).toAbsolutePath();
+        // 目标是符号链接时替换链接指向的文件，而不是链接本身
+        if (Files.isSymbolicLink(path) && Files.exists(path)) {
+            path = path.toRealPath();
+        }
+
+        writeAtomically(path, document::writeTo);
+    }
+
+    /**
+     * 内容写出回调
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * 二进制内容写出回调
+     */
+    @FunctionalInterface
+    public interface StreamWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
 
+    /**
+     * 以"写临时文件 + 原子替换"的方式写入文本文件（UTF-8 编码）
+     *
+     * @param path 目标文件（不解析符号链接）
+     * @param content 内容写出回调
+     */
+    public static void writeAtomically(Path path, ContentWriter content) throws IOException {
+        writeBytesAtomically(path, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), SAVE_BUFFER_SIZE);
+            // 逐行编码，不生成整个内容的字符串
+            content.writeTo(writer);
+            writer.flush();
+        });
+    }
+
+    /**
+     * 以"写临时文件 + 原子替换"的方式写入文件
+     *
+     * @param path 目标文件（不解析符号链接）
+     * @param content 内容写出回调（无需自行缓冲）
+     */
+    public static void writeBytesAtomically(Path path, StreamWriter content) throws IOException {
         // 确保父目录存在
         Path parent = path.getParent();
         if (parent != null && !Files.exists(parent)) {
             Files.createDirectories(parent);
         }
 
-        // 写入文件（UTF-8 编码）
-        String content = document.getContent();
-        Files.writeString(path, content, StandardCharsets.UTF_8);
+        // 临时文件与目标在同一目录，保证可以原子替换
+        Path temp = path.resolveSibling("." + path.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), SAVE_BUFFER_SIZE)) {
+                content.writeTo(out);
+                out.flush();
+                if (forceOnSave) {
+                    channel.force(true);
+                }
+            }
+            copyPermissions(path, temp);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (forceOnSave && parent != null) {
+                forceDirectory(parent);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 替换已有文件时保留其权限
+     */
+    private static void copyPermissions(Path from, Path to) {
+        if (!Files.exists(from)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException | IOException e) {
+            // 非 POSIX 文件系统：保持默认权限
+        }
+    }
+
+    /**
+     * 把目录项的变化（改名）落盘；部分平台不支持打开目录，忽略即可
+     */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // 忽略
+        }
     }
 
     /**
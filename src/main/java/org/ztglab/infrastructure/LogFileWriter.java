@@ -0,0 +1,511 @@
+package org.ztglab.infrastructure;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志文件写入器 - 每个日志文件保持一个打开的通道，写入先进入内存缓冲区
+ *
+ * 刷新策略：
+ * 1. 按大小：缓冲区中的数据达到阈值时写入通道
+ * 2. 按时间：后台定时把超过刷新间隔的缓冲区写入通道，空闲时也不会长时间滞留
+ * 3. 可选的组提交：每次写入通道后调用 force()，把这一批数据一起落盘
+ *
+ * 通道在文件关闭（close）或工作区关闭（closeAll）时关闭，之后再写入会重新打开。
+ * 读取日志之前需要先 flush，保证读到刚写入的内容。
+ *
+ * 轮转（setRotationPolicy）：当前文件超过大小上限或时间跨度时，改名为
+ * "原文件名.yyyyMMdd-HHmmss" 的分段并重新开始写入；分段在后台线程压缩为 .gz，
+ * 超出保留个数的最旧分段被删除。分段写完后不再改变，可以安全地硬链接。
+ * 二进制日志何时开始新分段由编码方决定（appendBytes 的 newSegment），轮转方式相同。
+ */
+public class LogFileWriter {
+
+    /**
+     * 落盘策略
+     */
+    public enum ForcePolicy {
+        NEVER,    // 只写入操作系统缓存，由系统决定何时落盘
+        ON_FLUSH  // 每次把缓冲区写入通道后 force()，一批数据一次落盘
+    }
+
+    // 默认缓冲区大小与按大小刷新的阈值
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+    // 默认按时间刷新的间隔
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+    /**
+     * 写入回调 - 用于在追加时维护日志索引
+     */
+    @FunctionalInterface
+    public interface AppendListener {
+        /**
+         * @param path 日志文件
+         * @param offset 该行在文件中的起始偏移（含尚未刷新的缓冲数据）
+         * @param length 该行的字节数（含换行符）
+         * @param line 行内容（不含换行符）
+         */
+        void onAppend(Path path, long offset, int length, String line);
+    }
+
+    /**
+     * 轮转策略
+     *
+     * @param maxBytes 当前文件的大小上限（字节），<=0 表示不按大小轮转
+     * @param maxAgeMillis 当前文件的时间跨度上限（毫秒），<=0 表示不按时间轮转
+     * @param retainSegments 保留的历史分段个数
+     */
+    public record RotationPolicy(long maxBytes, long maxAgeMillis, int retainSegments) {
+        public static final RotationPolicy DEFAULT =
+                new RotationPolicy(1024 * 1024, TimeUnit.DAYS.toMillis(1), 5);
+
+        public RotationPolicy {
+            if (retainSegments < 0) {
+                throw new IllegalArgumentException("保留分段个数不能为负数");
+            }
+        }
+
+        /**
+         * 写入 incoming 字节之前是否应当开始新的分段
+         *
+         * @param size 当前分段的长度
+         * @param incoming 即将写入的字节数
+         * @param startMillis 当前分段的开始时间
+         */
+        public boolean shouldRotate(long size, long incoming, long startMillis) {
+            if (size == 0) {
+                return false; // 空文件不轮转，避免超长单行导致每行一个分段
+            }
+            return (maxBytes > 0 && size + incoming > maxBytes)
+                    || (maxAgeMillis > 0 && System.currentTimeMillis() - startMillis >= maxAgeMillis);
+        }
+    }
+
+    private static final DateTimeFormatter SEGMENT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String COMPRESSED_SUFFIX = ".gz";
+    private static final DateTimeFormatter TIMESTAMP_KEY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    // 读取开始时间时最多读取的文件头字节数（足够容纳第一行时间戳或文件头加会话记录）
+    private static final int START_PROBE_BYTES = 64;
+
+    private final Map<Path, LogChannel> channels = new HashMap<>();
+    private final int bufferSize;
+    private final long flushIntervalNanos;
+    private volatile ForcePolicy forcePolicy = ForcePolicy.NEVER;
+    private volatile AppendListener appendListener;
+    // 为null时不轮转
+    private volatile RotationPolicy rotationPolicy;
+
+    // 按时间刷新的后台任务（首次写入时启动，closeAll 时停止）
+    private ScheduledExecutorService flusher;
+    // 压缩分段的后台线程：与刷新分开，压缩大分段时不推迟刷新；空闲时线程自动退出，
+    // 不是守护线程，程序退出前会压缩完已轮转的分段
+    private final ThreadPoolExecutor compressor = newCompressor();
+
+    public LogFileWriter() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param bufferSize 每个文件的缓冲区大小（字节），写满即刷新
+     * @param flushIntervalMillis 缓冲数据最长滞留时间（毫秒）
+     */
+    public LogFileWriter(int bufferSize, long flushIntervalMillis) {
+        if (bufferSize <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("缓冲区大小和刷新间隔必须大于0");
+        }
+        this.bufferSize = bufferSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    }
+
+    /**
+     * 设置落盘策略
+     */
+    public void setForcePolicy(ForcePolicy forcePolicy) {
+        this.forcePolicy = forcePolicy == null ? ForcePolicy.NEVER : forcePolicy;
+    }
+
+    /**
+     * 设置轮转策略，null 表示不轮转
+     */
+    public void setRotationPolicy(RotationPolicy rotationPolicy) {
+        this.rotationPolicy = rotationPolicy;
+    }
+
+    public RotationPolicy getRotationPolicy() {
+        return rotationPolicy;
+    }
+
+    /**
+     * 设置写入回调（在写入锁内调用，应尽量轻量）
+     */
+    public void setAppendListener(AppendListener appendListener) {
+        this.appendListener = appendListener;
+    }
+
+    /**
+     * 追加一行（自动补换行符）
+     */
+    public synchronized void appendLine(Path path, String line) throws IOException {
+        byte[] bytes = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        LogChannel channel = channels.get(path);
+        if (channel == null) {
+            channel = open(path);
+            channels.put(path, channel);
+            startFlusher();
+        }
+        RotationPolicy policy = rotationPolicy;
+        if (policy != null && channel.shouldRotate(policy, bytes.length)) {
+            channel = rotate(path, channel, policy);
+        }
+        long offset = channel.size;
+        channel.write(bytes);
+        AppendListener listener = appendListener;
+        if (listener != null) {
+            listener.onAppend(path, offset, bytes.length, line);
+        }
+        if (channel.buffer.position() >= bufferSize
+                || System.nanoTime() - channel.lastFlushNanos >= flushIntervalNanos) {
+            channel.flush();
+        }
+    }
+
+    /**
+     * 追加原始字节（用于二进制日志；不触发写入回调）
+     * 二进制记录之间有依赖（命令名定义、时间差），不能在任意位置切分，
+     * 由编码方决定何时开始新分段（见 BinaryCommandLog.Encoder），这里只负责轮转文件。
+     *
+     * @param newSegment 这段字节是新分段的开头（以文件头开始），当前文件非空时先轮转
+     */
+    public synchronized void appendBytes(Path path, byte[] bytes, boolean newSegment) throws IOException {
+        LogChannel channel = channels.get(path);
+        if (channel == null) {
+            channel = open(path);
+            channels.put(path, channel);
+            startFlusher();
+        }
+        if (newSegment && channel.size > 0) {
+            RotationPolicy policy = rotationPolicy;
+            channel = rotate(path, channel, policy == null ? RotationPolicy.DEFAULT : policy);
+        }
+        channel.write(bytes);
+        if (channel.buffer.position() >= bufferSize
+                || System.nanoTime() - channel.lastFlushNanos >= flushIntervalNanos) {
+            channel.flush();
+        }
+    }
+
+    /**
+     * 把指定文件的缓冲数据写入通道
+     */
+    public synchronized void flush(Path path) throws IOException {
+        LogChannel channel = channels.get(path);
+        if (channel != null) {
+            channel.flush();
+        }
+    }
+
+    /**
+     * 把所有文件的缓冲数据写入通道
+     */
+    public synchronized void flushAll() {
+        for (LogChannel channel : channels.values()) {
+            try {
+                channel.flush();
+            } catch (IOException e) {
+                System.err.println("[log warn] 写入日志失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 刷新并关闭指定文件的通道
+     */
+    public synchronized void close(Path path) {
+        LogChannel channel = channels.remove(path);
+        if (channel != null) {
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * 刷新并关闭所有通道，停止按时间刷新的后台任务（之后再写入会重新启动）
+     */
+    public synchronized void closeAll() {
+        List<LogChannel> open = new ArrayList<>(channels.values());
+        channels.clear();
+        for (LogChannel channel : open) {
+            closeQuietly(channel);
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher = null;
+        }
+    }
+
+    /**
+     * 当前打开的通道数
+     */
+    public synchronized int getOpenChannelCount() {
+        return channels.size();
+    }
+
+    /**
+     * 获取日志文件的历史分段（从旧到新），包括尚未压缩的分段
+     * 正在压缩的分段同时存在原文件和未写完的 .gz，只列出原文件。
+     */
+    public static List<Path> listSegments(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return List.of();
+        }
+        Pattern pattern = Pattern.compile(
+                Pattern.quote(path.getFileName().toString()) + "\\.(\\d{8}-\\d{6})(?:-(\\d+))?(?:\\.gz)?");
+        List<Matcher> matched;
+        try (Stream<Path> files = Files.list(dir)) {
+            matched = files.map(p -> pattern.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .toList();
+        }
+        Set<String> names = matched.stream().map(Matcher::group).collect(Collectors.toSet());
+        // 按分段时间排序，同一秒内的分段再按序号排序
+        return matched.stream()
+                .filter(m -> !m.group().endsWith(COMPRESSED_SUFFIX)
+                        || !names.contains(m.group().substring(0, m.group().length() - COMPRESSED_SUFFIX.length())))
+                .sorted(Comparator.comparing((Matcher m) -> m.group(1))
+                        .thenComparingInt(m -> m.group(2) == null ? 0 : Integer.parseInt(m.group(2))))
+                .map(m -> path.resolveSibling(m.group()))
+                .toList();
+    }
+
+    /**
+     * 轮转：关闭当前通道，把文件改名为分段，在后台压缩并清理旧分段，然后重新打开
+     */
+    private LogChannel rotate(Path path, LogChannel channel, RotationPolicy policy) throws IOException {
+        channels.remove(path);
+        closeQuietly(channel);
+        Path segment = nextSegmentName(path);
+        Files.move(path, segment);
+        compressor.execute(() -> compressAndPrune(path, segment, policy.retainSegments()));
+
+        LogChannel reopened = open(path, System.currentTimeMillis());
+        channels.put(path, reopened);
+        return reopened;
+    }
+
+    /**
+     * 分段名：原文件名.yyyyMMdd-HHmmss，同一秒内已有分段时加序号，序号总是递增，
+     * 保证旧分段被清理后新分段仍排在最后
+     */
+    private static Path nextSegmentName(Path path) throws IOException {
+        String base = path.getFileName() + "." + LocalDateTime.now().format(SEGMENT_TIME_FORMAT);
+        int next = 0;
+        for (Path existing : listSegments(path)) {
+            String name = existing.getFileName().toString();
+            if (name.endsWith(COMPRESSED_SUFFIX)) {
+                name = name.substring(0, name.length() - COMPRESSED_SUFFIX.length());
+            }
+            if (name.equals(base)) {
+                next = Math.max(next, 1);
+            } else if (name.startsWith(base + "-")) {
+                next = Math.max(next, Integer.parseInt(name.substring(base.length() + 1)) + 1);
+            }
+        }
+        return path.resolveSibling(next == 0 ? base : base + "-" + next);
+    }
+
+    /**
+     * 压缩分段并按保留个数删除最旧的分段（在后台线程执行）
+     */
+    private static void compressAndPrune(Path path, Path segment, int retainSegments) {
+        try {
+            Path compressed = segment.resolveSibling(segment.getFileName() + COMPRESSED_SUFFIX);
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 64 * 1024)) {
+                in.transferTo(out);
+            }
+            Files.delete(segment);
+        } catch (NoSuchFileException e) {
+            // 分段已被清理或迁移，不需要压缩
+        } catch (IOException e) {
+            System.err.println("[log warn] 压缩日志分段失败: " + e.getMessage());
+        }
+        try {
+            List<Path> segments = listSegments(path);
+            for (int i = 0; i < segments.size() - retainSegments; i++) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        } catch (IOException e) {
+            System.err.println("[log warn] 清理日志分段失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 打开已有的日志文件（或新建），分段开始时间取自文件中的第一条记录
+     */
+    private LogChannel open(Path path) throws IOException {
+        return open(path, readStartMillis(path));
+    }
+
+    /**
+     * @param startMillis 当前分段的开始时间（用于按时间轮转）
+     */
+    private LogChannel open(Path path, long startMillis) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel fileChannel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new LogChannel(fileChannel, ByteBuffer.allocate(bufferSize), startMillis);
+    }
+
+    /**
+     * 读取已有日志文件的开始时间：文本日志取第一行的时间戳，二进制日志取第一条会话记录的时间
+     * 不使用文件的创建时间：文件系统可能不支持（退回修改时间），同名文件被删除后重建时
+     * 也可能沿用旧文件的创建时间，都会导致每次写入都触发轮转。
+     * 文件不存在、为空或无法识别时返回当前时间。
+     */
+    static long readStartMillis(Path path) {
+        long now = System.currentTimeMillis();
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] head = in.readNBytes(START_PROBE_BYTES);
+            long millis = BinaryCommandLog.sessionMillis(head);
+            if (millis < 0) {
+                millis = timestampMillis(new String(head, StandardCharsets.UTF_8));
+            }
+            return millis < 0 ? now : millis;
+        } catch (IOException e) {
+            return now;
+        }
+    }
+
+    // 文本日志行首时间戳（yyyyMMdd HH:mm:ss，系统时区）对应的毫秒数，无法识别时返回-1
+    private static long timestampMillis(String firstLine) {
+        long key = LogIndex.timestampKey(firstLine);
+        if (key < 0) {
+            return -1;
+        }
+        try {
+            return LocalDateTime.parse(Long.toString(key), TIMESTAMP_KEY_FORMAT)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private void closeQuietly(LogChannel channel) {
+        try {
+            channel.flush();
+        } catch (IOException e) {
+            System.err.println("[log warn] 写入日志失败: " + e.getMessage());
+        }
+        try {
+            channel.fileChannel.close();
+        } catch (IOException e) {
+            System.err.println("[log warn] 关闭日志失败: " + e.getMessage());
+        }
+    }
+
+    private static ThreadPoolExecutor newCompressor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "log-compressor"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void startFlusher() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos);
+        flusher.scheduleWithFixedDelay(this::flushAll, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 单个日志文件：打开的通道 + 写缓冲区
+     */
+    private final class LogChannel {
+        private final FileChannel fileChannel;
+        private final ByteBuffer buffer;
+        private long lastFlushNanos = System.nanoTime();
+        // 文件的逻辑长度（已写入通道的 + 缓冲区中的）
+        private long size;
+        // 当前分段的开始时间（用于按时间轮转）
+        private final long startMillis;
+
+        private LogChannel(FileChannel fileChannel, ByteBuffer buffer, long startMillis) throws IOException {
+            this.fileChannel = fileChannel;
+            this.buffer = buffer;
+            this.size = fileChannel.size();
+            this.startMillis = startMillis;
+        }
+
+        private boolean shouldRotate(RotationPolicy policy, int incoming) {
+            return policy.shouldRotate(size, incoming, startMillis);
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            size += bytes.length;
+            if (bytes.length > buffer.remaining()) {
+                flush();
+            }
+            if (bytes.length > buffer.capacity()) {
+                // 超长的一行直接写入通道
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    fileChannel.write(large);
+                }
+                return;
+            }
+            buffer.put(bytes);
+        }
+
+        private void flush() throws IOException {
+            lastFlushNanos = System.nanoTime();
+            if (buffer.position() == 0) {
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+            buffer.clear();
+            if (forcePolicy == ForcePolicy.ON_FLUSH) {
+                fileChannel.force(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.ztglab.infrastructure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 日志稀疏索引 - 时间戳到字节偏移的映射，每隔约 STRIDE 字节记录一条
+ *
+ * 维护方式：
+ * 1. LogFileWriter 每写入一行回调 onAppend，偏移连续时直接推进索引（不读文件）
+ * 2. 查询前调用 catchUp，只扫描索引尚未覆盖的尾部（如之前会话写入的内容）
+ * 3. 文件变短（被截断或轮转）时从头重建
+ *
+ * 时间戳以 yyyyMMddHHmmss 形式的 long 表示，大小顺序与时间顺序一致，不涉及时区。
+ * 查找假设日志按时间顺序追加；时钟回拨时结果可能多包含少量行，但不会漏掉行。
+ */
+public class LogIndex {
+
+    // 索引间隔（字节）
+    static final int STRIDE = 64 * 1024;
+    // 解析时间戳只需要行首的若干字节
+    private static final int PREFIX_BYTES = 40;
+    private static final String SESSION_PREFIX = "session start at ";
+
+    private long[] keys = new long[16];
+    private long[] offsets = new long[16];
+    private int size = 0;
+    // 已索引到的字节偏移（总是某一行的开头）
+    private long indexedUpTo = 0;
+    private long lastEntryOffset = -STRIDE;
+
+    /**
+     * 写入一行后的回调
+     *
+     * @param offset 行首偏移
+     * @param length 行的字节数（含换行符）
+     * @param line 行内容（不含换行符）
+     */
+    public synchronized void onAppend(long offset, int length, String line) {
+        if (offset == 0 && indexedUpTo != 0) {
+            reset(); // 文件被轮转或截断，重新开始
+        }
+        if (offset != indexedUpTo) {
+            return; // 中间有未索引的内容，留给 catchUp 扫描
+        }
+        if (offset - lastEntryOffset >= STRIDE) {
+            addEntry(timestampKey(line), offset);
+        }
+        indexedUpTo = offset + length;
+    }
+
+    /**
+     * 扫描索引尚未覆盖的文件尾部（调用前应先把缓冲区写入文件）
+     */
+    public synchronized void catchUp(Path logPath) throws IOException {
+        if (!Files.exists(logPath)) {
+            reset();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < indexedUpTo) {
+                reset();
+            }
+            if (indexedUpTo >= fileSize) {
+                return;
+            }
+            scan(channel, fileSize);
+        }
+    }
+
+    private void scan(FileChannel channel, long fileSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        byte[] prefix = new byte[PREFIX_BYTES];
+        int prefixLength = 0;
+        long position = indexedUpTo;
+        long lineStart = indexedUpTo;
+
+        while (position < fileSize) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                byte b = bytes[i];
+                if (b == '\n') {
+                    if (lineStart - lastEntryOffset >= STRIDE) {
+                        addEntry(timestampKey(new String(prefix, 0, prefixLength, StandardCharsets.UTF_8)), lineStart);
+                    }
+                    lineStart = position + i + 1;
+                    indexedUpTo = lineStart;
+                    prefixLength = 0;
+                } else if (prefixLength < PREFIX_BYTES) {
+                    prefix[prefixLength++] = b;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * 查找开始扫描的位置：最后一个时间戳不晚于 key 的索引项的偏移
+     *
+     * @param key yyyyMMddHHmmss 形式的时间
+     * @return 字节偏移，没有合适的索引项时返回0
+     */
+    public synchronized long floorOffset(long key) {
+        int low = 0;
+        int high = size - 1;
+        long result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            // 用严格小于：同一秒的行可能从前一个索引项之后就开始了
+            // 没有时间戳的索引项按“可能晚于 key”处理，保守地向前看
+            if (keys[mid] >= 0 && keys[mid] < key) {
+                result = offsets[mid];
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 索引项数量
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 已索引的字节数
+     */
+    public synchronized long getIndexedUpTo() {
+        return indexedUpTo;
+    }
+
+    /**
+     * 清空索引
+     */
+    public synchronized void reset() {
+        size = 0;
+        indexedUpTo = 0;
+        lastEntryOffset = -STRIDE;
+    }
+
+    private void addEntry(long key, long offset) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        keys[size] = key;
+        offsets[size] = offset;
+        size++;
+        lastEntryOffset = offset;
+    }
+
+    /**
+     * 解析日志行的时间戳
+     * 支持 "yyyyMMdd HH:mm:ss ..." 与 "session start at yyyyMMdd HH:mm:ss"
+     *
+     * @return yyyyMMddHHmmss 形式的 long，没有时间戳时返回-1
+     */
+    public static long timestampKey(String line) {
+        if (line == null) {
+            return -1;
+        }
+        int start = line.startsWith(SESSION_PREFIX) ? SESSION_PREFIX.length() : 0;
+        if (line.length() < start + 17) {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = line.charAt(start + i);
+            if (i == 8) {
+                if (c != ' ') return -1;
+            } else if (i == 11 || i == 14) {
+                if (c != ':') return -1;
+            } else {
+                if (c < '0' || c > '9') return -1;
+                key = key * 10 + (c - '0');
+            }
+        }
+        return key;
+    }
+}
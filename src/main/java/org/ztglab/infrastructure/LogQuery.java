@@ -0,0 +1,113 @@
+package org.ztglab.infrastructure;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 日志查询条件
+ *
+ * - tail：只取最后 N 条（从文件末尾反向读取）
+ * - since / until：时间范围（含两端），借助 LogIndex 定位起始偏移
+ * - grep：正则表达式，行中任意位置匹配即可
+ * - page / pageSize：对满足条件的行分页（从1开始），与 tail 同时使用时忽略
+ *
+ * 时间以 yyyyMMddHHmmss 形式的 long 表示（与 LogIndex 一致），-1 表示不限
+ */
+public class LogQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final int tail;
+    private final long since;
+    private final long until;
+    private final Pattern grep;
+    private final int page;
+    private final int pageSize;
+
+    /**
+     * @param tail 最后 N 条，0 表示不限
+     * @param since 起始时间，-1 表示不限
+     * @param until 结束时间，-1 表示不限
+     * @param grep 过滤用的正则，null 表示不过滤
+     * @param page 页码（从1开始），0 表示不分页
+     * @param pageSize 每页行数
+     */
+    public LogQuery(int tail, long since, long until, String grep, int page, int pageSize) {
+        if (tail < 0 || page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("tail、page 不能为负数，page-size 必须大于0");
+        }
+        if (since >= 0 && until >= 0 && since > until) {
+            throw new IllegalArgumentException("--since 不能晚于 --until");
+        }
+        this.tail = tail;
+        this.since = since;
+        this.until = until;
+        try {
+            this.grep = grep == null ? null : Pattern.compile(grep);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("--grep 不是合法的正则表达式: " + grep);
+        }
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    public int getTail() {
+        return tail;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public long getUntil() {
+        return until;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * 行是否满足时间范围与 grep 条件
+     *
+     * @param key 行的时间（没有时间戳的行传入前一行的时间）
+     */
+    public boolean matches(long key, String line) {
+        if (key >= 0) {
+            if (since >= 0 && key < since) return false;
+            if (until >= 0 && key > until) return false;
+        }
+        return grep == null || grep.matcher(line).find();
+    }
+
+    /**
+     * 解析时间参数
+     * 支持 yyyyMMdd、yyyyMMdd-HH:mm、yyyyMMdd-HH:mm:ss（日期与时间之间也可以用 T）
+     *
+     * @param text 时间文本
+     * @param upper 作为上界时，省略的时/分/秒取最大值
+     * @return yyyyMMddHHmmss 形式的 long
+     */
+    public static long parseTime(String text, boolean upper) {
+        String digits = text.trim().replace("-", "").replace("T", "").replace(":", "");
+        if (!digits.matches("\\d{8}(\\d{4}(\\d{2})?)?")) {
+            throw new IllegalArgumentException("时间格式错误，应为 yyyyMMdd[-HH:mm[:ss]]: " + text);
+        }
+        String suffix = upper ? "235959" : "000000";
+        return Long.parseLong(digits + suffix.substring(digits.length() - 8));
+    }
+
+    /**
+     * 查询结果
+     *
+     * @param lines 满足条件的行（按时间顺序）
+     * @param hasMore 分页时是否还有下一页
+     */
+    public record Result(List<String> lines, boolean hasMore) {
+    }
+}
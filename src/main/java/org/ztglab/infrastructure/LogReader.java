@@ -0,0 +1,100 @@
+package org.ztglab.infrastructure;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * 日志读取 - 基于 FileChannel 从指定偏移正向读取，或从文件末尾反向读取，不把整个文件读入内存
+ *
+ * 两种方式都逐行回调 visitor，visitor 返回 false 时停止读取
+ */
+final class LogReader {
+
+    private static final int BLOCK_SIZE = 8 * 1024;
+
+    private LogReader() {
+    }
+
+    /**
+     * 从 offset 开始正向逐行读取
+     */
+    static void readForward(Path path, long offset, Predicate<String> visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position(Math.min(offset, channel.size()));
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!visitor.test(line)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 从文件末尾反向逐行读取（最后一行最先回调）
+     *
+     * 按块从后向前读，以 '\n' 切分；UTF-8 多字节字符中不会出现 '\n'，
+     * 所以按字节切分不会截断字符，跨块的半行保留到下一块拼接
+     */
+    static void readBackward(Path path, Predicate<String> visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            // 尚未遇到行首的字节（属于当前块之后的那一行的开头部分）
+            byte[] carry = new byte[0];
+            boolean atEnd = true;
+
+            while (position > 0) {
+                int length = (int) Math.min(BLOCK_SIZE, position);
+                position -= length;
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+
+                byte[] chunk = new byte[length + carry.length];
+                System.arraycopy(buffer.array(), 0, chunk, 0, length);
+                System.arraycopy(carry, 0, chunk, length, carry.length);
+
+                int end = chunk.length;
+                for (int i = chunk.length - 1; i >= 0; i--) {
+                    if (chunk[i] != '\n') {
+                        continue;
+                    }
+                    // 文件末尾的换行符之后没有内容，不算一行
+                    if (!(atEnd && i + 1 == end)) {
+                        if (!visitor.test(decode(chunk, i + 1, end))) {
+                            return;
+                        }
+                    }
+                    atEnd = false;
+                    end = i;
+                }
+                carry = Arrays.copyOf(chunk, end);
+            }
+            if (carry.length > 0) {
+                visitor.test(decode(carry, 0, carry.length));
+            }
+        }
+    }
+
+    private static String decode(byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+}
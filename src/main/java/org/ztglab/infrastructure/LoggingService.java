@@ -1,23 +1,28 @@
 package org.ztglab.infrastructure;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.ztglab.event.events.*;
 import org.ztglab.command.AbstractCommand;
-import org.ztglab.workspace.Workspace;
 import org.ztglab.workspace.Document;
 
 /**
@@ -37,26 +42,79 @@ import org.ztglab.workspace.Document;
  *
  * 日志文件命名：项目根目录log文件夹下 "." + 原文件名 + ".log"，例如：lab.txt -> .lab.txt.log
  *
+ * 写入方式：经由 LogFileWriter，每个日志文件保持一个打开的通道并批量写入；
+ * 文件关闭或工作区关闭时关闭对应通道，读取日志前先刷新缓冲区。
+ *
+ * 异步模式（setAsync）：日志行进入 AsyncLogPipeline 的无锁队列，由单一写线程写盘，
+ * 命令执行路径上不再有磁盘操作；读日志、关闭文件和退出前都会先等待队列写完。
+ *
+ * 轮转：当前日志超过大小或时间上限时由 LogFileWriter 轮转为压缩分段，按个数保留；
+ * readLog / queryLog 只读取当前分段。
+ *
+ * 日志格式（setFormat）：TEXT 为可读的文本行；BINARY 为 BinaryCommandLog 的紧凑二进制记录
+ * （".name.blog"，保存原始命令名与参数，可被 log-replay 回放）；BOTH 同时写两种。
+ * 只写二进制时，log-show 把二进制记录还原为文本显示。
+ *
+ * 查询（queryLog）：写入时为每个日志文件维护稀疏索引（LogIndex），
+ * 按时间范围查询时先用索引定位起始偏移，tail 则从文件末尾反向读取，都不读入整个文件。
+ *
  * 失败策略：捕获并吞掉异常，仅打印警告，不影响主流程。
  */
 public class LoggingService {
 
+    /**
+     * 日志格式
+     */
+    public enum LogFormat {
+        TEXT,
+        BINARY,
+        BOTH;
+
+        boolean writesText() {
+            return this != BINARY;
+        }
+
+        boolean writesBinary() {
+            return this != TEXT;
+        }
+    }
+
     // 文件是否开启日志记录
     private final Map<String, Boolean> enabledMap = new HashMap<>();
     // 本次运行中已写入 session start 的文件
     private final Set<String> sessionStarted = new HashSet<>();
-    // 时间格式化
-    private final SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMdd HH:mm:ss");
+    // 时间格式化（按秒缓存，线程安全）
+    private final CachedTimestamp timestamp = new CachedTimestamp("yyyyMMdd HH:mm:ss");
     
     // 当前活动文件路径（用于判断是否需要记录日志）
     private String activeFilePath;
     
-    // 每个文件的排除命令列表（从文件头解析）
-    private final Map<String, Set<String>> excludedCommandsMap = new HashMap<>();
+    // 当前活动文档（用于读取文件头）
+    private Document activeDocument;
+
+    // 每个文件的排除命令列表（从文件头解析），按文档版本判断是否过期
+    private final Map<String, HeaderCache> headerCache = new HashMap<>();
 
-    private Workspace workspace;
+    // 日志文件写入器（保持通道打开，批量写入）
+    private final LogFileWriter writer = new LogFileWriter();
+    // 异步写入管道，为null时同步写入
+    private volatile AsyncLogPipeline asyncPipeline;
+    // 等待异步日志写完的最长时间
+    private static final long DRAIN_TIMEOUT_SECONDS = 5;
+    // 异步队列容量（下次开启异步模式时生效）
+    private volatile int asyncCapacity = AsyncLogPipeline.DEFAULT_CAPACITY;
+    // 每个日志文件的时间戳索引
+    private final Map<Path, LogIndex> indexes = new ConcurrentHashMap<>();
+    // 日志格式
+    private volatile LogFormat format = LogFormat.TEXT;
+    // 每个二进制日志文件的编码器（命令名表与时间基准）
+    private final Map<Path, BinaryCommandLog.Encoder> encoders = new ConcurrentHashMap<>();
+    // 日志目录，默认为项目根目录（工作目录）下的 log 文件夹
+    private volatile Path logDirectory = Paths.get(System.getProperty("user.dir"), "log");
 
     public LoggingService() {
+        writer.setAppendListener((path, offset, length, line) ->
+                indexes.computeIfAbsent(path, p -> new LogIndex()).onAppend(offset, length, line));
     }
 
     /**
@@ -68,10 +126,15 @@ public class LoggingService {
         }
         enabledMap.put(filePath, true);
         // 重新启用日志时，清除一次缓存，下次执行命令时会重新解析文件头
-        excludedCommandsMap.remove(filePath);
+        headerCache.remove(filePath);
         // 如果本文件还没有写入 session start，则追加一行
         if (!sessionStarted.contains(filePath)) {
-            appendLine(filePath, "session start at " + now());
+            if (format.writesText()) {
+                appendLine(filePath, "session start at " + now());
+            }
+            if (format.writesBinary()) {
+                appendBinary(filePath, encoder -> encoder.encodeSession(System.currentTimeMillis()));
+            }
             sessionStarted.add(filePath);
         }
     }
@@ -96,6 +159,8 @@ public class LoggingService {
      */
     public void logCommand(String filePath, String commandName, String rawArgs) {
         if (!isEnabled(filePath)) return;
+        appendRecord(filePath, commandName, rawArgs == null ? "" : rawArgs.trim(), null);
+        if (!format.writesText()) return;
         StringBuilder line = new StringBuilder();
         line.append(now()).append(' ').append(commandName);
         if (rawArgs != null && !rawArgs.trim().isEmpty()) {
@@ -109,6 +174,9 @@ public class LoggingService {
      */
     public void logFailure(String filePath, String commandName, String rawArgs, String errorMessage) {
         if (!isEnabled(filePath)) return;
+        appendRecord(filePath, commandName, rawArgs == null ? "" : rawArgs.trim(),
+                errorMessage == null ? "" : errorMessage);
+        if (!format.writesText()) return;
         StringBuilder line = new StringBuilder();
         line.append(now()).append(' ').append(commandName);
         if (rawArgs != null && !rawArgs.trim().isEmpty()) {
@@ -125,11 +193,17 @@ public class LoggingService {
      * 显示日志内容（返回字符串；若不存在返回空字符串）
      */
     public String readLog(String filePath) {
+        if (!format.writesText()) {
+            return renderBinaryLog(filePath);
+        }
         Path logPath = getLogFilePath(filePath);
+        // 异步模式下日志文件可能尚未写出，先排空队列再判断是否存在
+        drainAsync();
         if (logPath == null || !Files.exists(logPath)) {
             return ""; // 不存在直接返回空
         }
         try {
+            writer.flush(logPath);
             return Files.readString(logPath, StandardCharsets.UTF_8);
         } catch (IOException e) {
             System.err.println("[log warn] 读取日志失败: " + e.getMessage());
@@ -137,23 +211,245 @@ public class LoggingService {
         }
     }
 
+    /**
+     * 按条件查询日志
+     *
+     * @param filePath 原文件路径
+     * @param query 查询条件
+     * @return 查询结果；日志不存在时返回空结果
+     */
+    public LogQuery.Result queryLog(String filePath, LogQuery query) {
+        if (!format.writesText()) {
+            return queryBinaryLog(filePath, query);
+        }
+        Path logPath = getLogFilePath(filePath);
+        // 异步模式下日志文件可能尚未写出，先排空队列再判断是否存在
+        drainAsync();
+        if (logPath == null || !Files.exists(logPath)) {
+            return new LogQuery.Result(List.of(), false);
+        }
+        try {
+            writer.flush(logPath);
+            if (query.getTail() > 0) {
+                return new LogQuery.Result(tail(logPath, query), false);
+            }
+            return page(logPath, query);
+        } catch (IOException e) {
+            System.err.println("[log warn] 读取日志失败: " + e.getMessage());
+            return new LogQuery.Result(List.of(), false);
+        }
+    }
+
+    /**
+     * 查询二进制日志：逐条还原为文本行后按相同条件过滤
+     * 二进制日志没有时间索引，总是顺序读完当前分段（分段大小受轮转上限约束）
+     */
+    private LogQuery.Result queryBinaryLog(String filePath, LogQuery query) {
+        Path logPath = getBinaryLogFilePath(filePath);
+        // 异步模式下日志文件可能尚未写出，先排空队列再判断是否存在
+        drainAsync();
+        if (logPath == null || !Files.exists(logPath)) {
+            return new LogQuery.Result(List.of(), false);
+        }
+        int tail = query.getTail();
+        int skip = tail == 0 && query.getPage() > 0 ? (query.getPage() - 1) * query.getPageSize() : 0;
+        int limit = tail == 0 && query.getPage() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
+        Deque<String> lines = new ArrayDeque<>();
+        boolean[] hasMore = new boolean[1];
+        int[] matched = {0};
+        try {
+            writer.flush(logPath);
+            BinaryCommandLog.read(logPath, record -> {
+                String line = formatRecord(record);
+                if (!query.matches(LogIndex.timestampKey(line), line)) {
+                    return;
+                }
+                if (tail > 0) {
+                    lines.addLast(line);
+                    if (lines.size() > tail) {
+                        lines.removeFirst();
+                    }
+                } else if (matched[0]++ >= skip) {
+                    if (lines.size() < limit) {
+                        lines.addLast(line);
+                    } else {
+                        hasMore[0] = true;
+                    }
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("[log warn] 读取日志失败: " + e.getMessage());
+            return new LogQuery.Result(List.of(), false);
+        }
+        return new LogQuery.Result(new ArrayList<>(lines), hasMore[0]);
+    }
+
+    /**
+     * 反向读取，收集最后 N 条满足条件的行
+     */
+    private List<String> tail(Path logPath, LogQuery query) throws IOException {
+        Deque<String> lines = new ArrayDeque<>();
+        long since = query.getSince();
+        LogReader.readBackward(logPath, line -> {
+            long key = LogIndex.timestampKey(line);
+            // 已经早于起始时间，更早的行都不需要再读
+            if (since >= 0 && key >= 0 && key < since) {
+                return false;
+            }
+            if (query.matches(key, line)) {
+                lines.addFirst(line);
+            }
+            return lines.size() < query.getTail();
+        });
+        return new ArrayList<>(lines);
+    }
+
+    /**
+     * 正向读取：用索引跳到起始时间附近，超过结束时间即停止，按页截取
+     */
+    private LogQuery.Result page(Path logPath, LogQuery query) throws IOException {
+        long offset = 0;
+        if (query.getSince() >= 0) {
+            LogIndex index = indexes.computeIfAbsent(logPath, p -> new LogIndex());
+            index.catchUp(logPath);
+            offset = index.floorOffset(query.getSince());
+        }
+        int skip = query.getPage() > 0 ? (query.getPage() - 1) * query.getPageSize() : 0;
+        int limit = query.getPage() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
+        List<String> lines = new ArrayList<>();
+        boolean[] hasMore = new boolean[1];
+        long[] lastKey = {-1};
+        int[] matched = {0};
+        LogReader.readForward(logPath, offset, line -> {
+            long key = LogIndex.timestampKey(line);
+            if (key >= 0) {
+                lastKey[0] = key;
+            }
+            if (query.getUntil() >= 0 && key > query.getUntil()) {
+                return false;
+            }
+            if (!query.matches(lastKey[0], line)) {
+                return true;
+            }
+            if (matched[0]++ < skip) {
+                return true;
+            }
+            if (lines.size() == limit) {
+                hasMore[0] = true;
+                return false;
+            }
+            lines.add(line);
+            return true;
+        });
+        return new LogQuery.Result(lines, hasMore[0]);
+    }
+
+    /**
+     * 获取日志文件的时间戳索引（不存在时创建并扫描已有内容）
+     */
+    public LogIndex getLogIndex(String filePath) throws IOException {
+        Path logPath = getLogFilePath(filePath);
+        if (logPath == null) {
+            return null;
+        }
+        drainAsync();
+        writer.flush(logPath);
+        LogIndex index = indexes.computeIfAbsent(logPath, p -> new LogIndex());
+        index.catchUp(logPath);
+        return index;
+    }
+
     /**
      * 迁移日志：将旧文件路径对应的日志内容迁移到新文件路径对应的日志文件。
      * 不删除旧日志，仅做追加，确保历史不丢失。
+     *
+     * 不再逐行重写：已轮转的历史分段不会再变化，直接硬链接（不支持时复制）；
+     * 当前分段用 FileChannel.transferTo 整体追加，其大小受轮转上限约束，迁移耗时有界。
      */
     public void migrateLogs(String fromFilePath, String toFilePath) {
         if (fromFilePath == null || toFilePath == null) return;
-        String content = readLog(fromFilePath);
-        if (content == null || content.isEmpty()) {
+        Path from = getLogFilePath(fromFilePath);
+        Path to = getLogFilePath(toFilePath);
+        if (from == null || to == null || from.equals(to)) {
             return;
         }
-        // 确保目标已启用
+        drainAsync();
+        boolean hasText = Files.exists(from);
+        boolean hasBinary = Files.exists(getBinaryLogFilePath(fromFilePath));
+        if (!hasText && !hasBinary) {
+            return;
+        }
+        writer.close(from);
+        // 确保目标已启用（写入 session start 行），再关闭其通道，迁移后重新打开时长度正确
         enable(toFilePath);
-        // 逐行追加，避免一次性写入丢失换行控制
-        String[] lines = content.split("\n", -1);
-        for (String line : lines) {
-            if (line != null && !line.isEmpty()) {
-                appendLine(toFilePath, line);
+        drainAsync();
+        writer.close(to);
+        try {
+            if (hasText) {
+                migrateTextLog(from, to);
+            }
+            if (hasBinary) {
+                migrateBinaryLog(fromFilePath, toFilePath);
+            }
+        } catch (IOException e) {
+            System.err.println("[log warn] 迁移日志失败: " + e.getMessage());
+        }
+    }
+
+    private void migrateTextLog(Path from, Path to) throws IOException {
+        linkSegments(from, to);
+        try (FileChannel source = FileChannel.open(from, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(to, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long size = source.size();
+            long position = 0;
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    /**
+     * 把源日志已轮转的历史分段硬链接（不支持时复制）为目标日志的分段
+     */
+    private static void linkSegments(Path from, Path to) throws IOException {
+        String fromName = from.getFileName().toString();
+        for (Path segment : LogFileWriter.listSegments(from)) {
+            String suffix = segment.getFileName().toString().substring(fromName.length());
+            Path target = to.resolveSibling(to.getFileName() + suffix);
+            if (Files.exists(target)) {
+                continue;
+            }
+            try {
+                Files.createLink(target, segment);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(segment, target);
+            }
+        }
+    }
+
+    /**
+     * 迁移二进制日志：历史分段与文本日志一样硬链接；当前分段跳过源文件的文件头整体追加，
+     * 源日志中每段都以会话记录开始，追加后目标编码器重新开始一个会话，命令名编号不会混淆
+     */
+    private void migrateBinaryLog(String fromFilePath, String toFilePath) throws IOException {
+        Path from = getBinaryLogFilePath(fromFilePath);
+        Path to = getBinaryLogFilePath(toFilePath);
+        if (!Files.exists(from) || !BinaryCommandLog.isBinaryLog(from)) {
+            return;
+        }
+        writer.close(from);
+        writer.close(to);
+        encoders.remove(to);
+        linkSegments(from, to);
+        boolean targetEmpty = !Files.exists(to) || Files.size(to) == 0;
+        try (FileChannel source = FileChannel.open(from, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(to, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long position = targetEmpty ? 0 : BinaryCommandLog.headerLength();
+            long size = source.size();
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
             }
         }
     }
@@ -163,13 +459,21 @@ public class LoggingService {
      */
     private Path getLogFilePath(String filePath) {
         if (filePath == null || filePath.isEmpty()) return null;
-        // 日志集中到项目根目录 log 文件夹
-        String projectRoot = System.getProperty("user.dir");
+        // 日志集中到日志目录
         String name = new File(filePath).getName();
         // Windows 文件名不允许的字符替换，处理临时路径如 <unsaved-xml-...>
         name = name.replaceAll("[\\\\/:*?\"<>|]", "_");
-        String logDir = projectRoot + File.separator + "log";
-        return Paths.get(logDir, "." + name + ".log");
+        return logDirectory.resolve("." + name + ".log");
+    }
+
+    /**
+     * 获取对应的二进制日志文件路径（与文本日志同目录，扩展名 .blog）
+     */
+    private Path getBinaryLogFilePath(String filePath) {
+        Path logPath = getLogFilePath(filePath);
+        if (logPath == null) return null;
+        String name = logPath.getFileName().toString();
+        return logPath.resolveSibling(name.substring(0, name.length() - ".log".length()) + ".blog");
     }
 
     /**
@@ -178,24 +482,251 @@ public class LoggingService {
     private void appendLine(String filePath, String line) {
         Path logPath = getLogFilePath(filePath);
         if (logPath == null) return;
+        AsyncLogPipeline pipeline = asyncPipeline;
+        if (pipeline != null) {
+            pipeline.submit(logPath, line);
+            return;
+        }
         try {
-            Files.createDirectories(logPath.getParent());
-            // 使用 NIO API 追加 UTF-8 写入
-            try (BufferedWriter bw = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-                bw.write(line);
-                bw.newLine();
-            }
+            writer.appendLine(logPath, line);
         } catch (IOException e) {
             System.err.println("[log warn] 写入日志失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 追加一条二进制命令记录（格式不含二进制时忽略）
+     *
+     * @param error 失败原因，成功时为null
+     */
+    private void appendRecord(String filePath, String name, String args, String error) {
+        if (!format.writesBinary()) {
+            return;
+        }
+        long millis = System.currentTimeMillis();
+        appendBinary(filePath, encoder -> encoder.encodeCommand(millis, name, args, error));
+    }
+
+    private void appendBinary(String filePath, Function<BinaryCommandLog.Encoder, byte[]> encode) {
+        Path logPath = getBinaryLogFilePath(filePath);
+        if (logPath == null) return;
+        BinaryCommandLog.Encoder encoder = encoders.computeIfAbsent(logPath, p -> {
+            try {
+                long size = Files.exists(p) ? Files.size(p) : 0;
+                return new BinaryCommandLog.Encoder(size, LogFileWriter.readStartMillis(p));
+            } catch (IOException e) {
+                return new BinaryCommandLog.Encoder(false);
+            }
+        });
+        // 编码与提交在同一把锁内，保证写入顺序与编码顺序一致（命令名定义在引用之前）
+        synchronized (encoder) {
+            byte[] bytes = encode.apply(encoder);
+            // 超出轮转上限时丢弃这次编码，从新分段重新编码（以文件头和会话记录开始）
+            boolean newSegment = false;
+            LogFileWriter.RotationPolicy policy = writer.getRotationPolicy();
+            if (policy != null && policy.shouldRotate(encoder.getSegmentBytes() - bytes.length, bytes.length,
+                    encoder.getSegmentStartMillis())) {
+                encoder.startSegment();
+                bytes = encode.apply(encoder);
+                newSegment = true;
+            }
+            AsyncLogPipeline pipeline = asyncPipeline;
+            if (pipeline != null) {
+                // 二进制记录不受队列满时的丢弃策略影响（见 AsyncLogPipeline.submit）
+                pipeline.submit(logPath, bytes, newSegment);
+                return;
+            }
+            try {
+                writer.appendBytes(logPath, bytes, newSegment);
+            } catch (IOException e) {
+                System.err.println("[log warn] 写入日志失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 把二进制日志还原为与文本日志相同格式的文本
+     */
+    private String renderBinaryLog(String filePath) {
+        Path logPath = getBinaryLogFilePath(filePath);
+        // 异步模式下日志文件可能尚未写出，先排空队列再判断是否存在
+        drainAsync();
+        if (logPath == null || !Files.exists(logPath)) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        try {
+            writer.flush(logPath);
+            BinaryCommandLog.read(logPath, record ->
+                    sb.append(formatRecord(record)).append(System.lineSeparator()));
+        } catch (IOException e) {
+            System.err.println("[log warn] 读取日志失败: " + e.getMessage());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 二进制日志记录对应的文本日志行
+     */
+    private String formatRecord(BinaryCommandLog.Record record) {
+        String time = timestamp.format(record.epochMillis());
+        if (record.isSession()) {
+            return "session start at " + time;
+        }
+        StringBuilder line = new StringBuilder();
+        line.append(time).append(' ').append(record.name());
+        if (record.args() != null && !record.args().isEmpty()) {
+            line.append(' ').append(record.args());
+        }
+        if (record.isFailed()) {
+            line.append(" FAILED ").append(record.error().replace('\n', ' '));
+        }
+        return line.toString();
+    }
+
+    /**
+     * 读取日志中记录的命令（用于回放），每条为 "命令名 参数"
+     *
+     * 二进制日志包含所有命令（含失败的，原样回放可以复现同样的失败）；
+     * 文本日志中失败的命令只记录了描述，无法还原，会被跳过。
+     *
+     * @param logFile 日志文件（二进制或文本）
+     */
+    public List<String> readLoggedCommands(Path logFile) throws IOException {
+        drainAsync();
+        writer.flush(logFile);
+        List<String> commands = new ArrayList<>();
+        if (BinaryCommandLog.isBinaryLog(logFile)) {
+            BinaryCommandLog.read(logFile, record -> {
+                if (!record.isSession()) {
+                    commands.add(record.args().isEmpty() ? record.name() : record.name() + " " + record.args());
+                }
+            });
+            return commands;
+        }
+        LogReader.readForward(logFile, 0, line -> {
+            if (!line.startsWith("session start at ") && LogIndex.timestampKey(line) >= 0 && line.length() > 18) {
+                String command = line.substring(18);
+                if (!command.startsWith("[FAILED]")) {
+                    commands.add(command);
+                }
+            }
+            return true;
+        });
+        return commands;
+    }
+
+    /**
+     * 获取文件对应的日志（优先二进制日志，其次文本日志），都不存在时返回null
+     */
+    public Path resolveLogFile(String filePath) {
+        drainAsync();
+        Path binary = getBinaryLogFilePath(filePath);
+        if (binary != null && Files.exists(binary)) {
+            return binary;
+        }
+        Path text = getLogFilePath(filePath);
+        return text != null && Files.exists(text) ? text : null;
+    }
+
+    /**
+     * 设置日志格式
+     */
+    public void setFormat(LogFormat format) {
+        this.format = format == null ? LogFormat.TEXT : format;
+    }
+
+    public LogFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 设置日志目录（之后打开的日志文件写到新目录）
+     */
+    public void setLogDirectory(Path directory) {
+        this.logDirectory = Objects.requireNonNull(directory, "日志目录不能为null");
+    }
+
+    public Path getLogDirectory() {
+        return logDirectory;
+    }
+
+    /**
+     * 开启或关闭异步日志模式（关闭时先写完队列中的日志并停止写线程）
+     */
+    public synchronized void setAsync(boolean async) {
+        AsyncLogPipeline pipeline = asyncPipeline;
+        if (async && (pipeline == null || pipeline.isClosed())) {
+            asyncPipeline = new AsyncLogPipeline(writer, asyncCapacity);
+        } else if (!async && pipeline != null) {
+            closePipeline(pipeline);
+            asyncPipeline = null;
+        }
+    }
+
+    /**
+     * 设置异步队列容量，下次开启异步模式时生效
+     */
+    public void setAsyncCapacity(int asyncCapacity) {
+        if (asyncCapacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0");
+        }
+        this.asyncCapacity = asyncCapacity;
+    }
+
+    /**
+     * 是否处于异步日志模式
+     */
+    public boolean isAsync() {
+        return asyncPipeline != null;
+    }
+
+    /**
+     * 获取异步写入管道（用于配置队列满时的策略），同步模式下返回null
+     */
+    public AsyncLogPipeline getAsyncPipeline() {
+        return asyncPipeline;
+    }
+
+    /**
+     * 把所有尚未写出的日志写入文件
+     */
+    public void flush() {
+        drainAsync();
+        writer.flushAll();
+    }
+
+    /**
+     * 等待异步队列中的日志写完
+     */
+    private void drainAsync() {
+        AsyncLogPipeline pipeline = asyncPipeline;
+        if (pipeline != null && !pipeline.drain(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.err.println("[log warn] 等待日志写入超时，剩余 " + pipeline.getPendingCount() + " 条");
+        }
+    }
+
+    /**
+     * 写完队列中的日志并停止写线程
+     */
+    private void closePipeline(AsyncLogPipeline pipeline) {
+        if (!pipeline.close(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.err.println("[log warn] 等待日志写入超时，剩余日志已同步写入");
+        }
+    }
+
+    /**
+     * 获取日志文件写入器（用于配置落盘策略）
+     */
+    public LogFileWriter getWriter() {
+        return writer;
+    }
+
     /**
      * 当前时间字符串
      */
     private String now() {
-        return formatter.format(new Date());
+        return timestamp.now();
     }
 
     /**
@@ -219,6 +750,7 @@ public class LoggingService {
      */
     public void onEvent(ActiveDocumentChangedEvent event) {
         Document doc = event.getNewDocument();
+        this.activeDocument = doc;
         if (doc != null) {
             this.activeFilePath = doc.getFilePath();
             // Check for # log
@@ -227,7 +759,7 @@ public class LoggingService {
                     String firstLine = doc.getLine(1);
                     if (firstLine != null && firstLine.trim().startsWith("# log")) {
                         enable(doc.getFilePath());
-                        System.out.println("已启用日志: " + doc.getFilePath());
+                        ApplicationContext.output().println("已启用日志: " + doc.getFilePath());
                     }
                 } catch (Exception ex) {
                     System.err.println("Error checking log header: " + ex.getMessage());
@@ -242,6 +774,10 @@ public class LoggingService {
      * 处理文档路径更新事件
      */
     public void onEvent(DocumentPathUpdatedEvent event) {
+        headerCache.remove(event.getOldPath());
+        if (event.getOldPath() != null && event.getOldPath().equals(activeFilePath)) {
+            activeFilePath = event.getNewPath();
+        }
         try {
             migrateLogs(event.getOldPath(), event.getNewPath());
         } catch (Exception ex) {
@@ -249,6 +785,33 @@ public class LoggingService {
         }
     }
 
+    /**
+     * 处理文档关闭事件：关闭对应日志文件的通道
+     */
+    public void onEvent(DocumentClosedEvent event) {
+        Path logPath = getLogFilePath(event.getFilePath());
+        if (logPath != null) {
+            drainAsync();
+            writer.close(logPath);
+            writer.close(getBinaryLogFilePath(event.getFilePath()));
+        }
+    }
+
+    /**
+     * 处理工作区关闭事件：停止异步写线程，刷新并关闭所有日志通道
+     * 之后仍有日志时同步写入（管道已关闭）；再次开启异步模式会创建新的管道
+     */
+    public void onEvent(WorkspaceClosingEvent event) {
+        AsyncLogPipeline pipeline = asyncPipeline;
+        if (pipeline != null) {
+            closePipeline(pipeline);
+            if (pipeline.getDroppedCount() > 0) {
+                System.err.println("[log warn] 日志队列已满，共丢弃 " + pipeline.getDroppedCount() + " 条日志");
+            }
+        }
+        writer.closeAll();
+    }
+
     /**
      * 处理命令接收事件
      */
@@ -262,15 +825,14 @@ public class LoggingService {
 
     /**
      * 处理命令执行中事件
-     * 在此阶段解析文件头，提取排除命令列表
+     * 在此阶段检查文件头，文档版本未变时直接使用缓存
      */
     public void onEvent(CommandExecutingEvent event) {
         if (activeFilePath == null || !isEnabled(activeFilePath)) {
             return;
         }
         
-        // 解析文件头，提取排除命令列表
-        parseFileHeader(activeFilePath);
+        getExcludedCommands(activeFilePath);
     }
 
     /**
@@ -291,6 +853,10 @@ public class LoggingService {
             return; // 跳过记录
         }
         
+        appendRecord(activeFilePath, name, args, null);
+        if (!format.writesText()) {
+            return;
+        }
         StringBuilder line = new StringBuilder();
         line.append(now()).append(' ').append(name);
         if (args != null && !args.isEmpty()) {
@@ -317,6 +883,10 @@ public class LoggingService {
         }
         
         String errorMsg = event.getException().getMessage();
+        appendRecord(activeFilePath, name, command.getOriginalArgs(), errorMsg == null ? "" : errorMsg);
+        if (!format.writesText()) {
+            return;
+        }
         appendLine(activeFilePath, now() + " [FAILED] " + command.getDescription() + 
                    " (原因: " + errorMsg + ")");
     }
@@ -324,78 +894,66 @@ public class LoggingService {
     // ==================== 日志过滤功能 ====================
     
     /**
-     * 解析文件头，提取排除命令列表
-     * 语法：`# log -e cmd1 -e cmd2 ...` 或 `# log`
-     * 
+     * 获取文件的排除命令列表
+     *
+     * 缓存按文档版本失效：版本未变直接返回；版本变了但第一行没变（编辑的是其他行）
+     * 只更新版本号；只有第一行真的变化时才重新解析。
+     *
      * @param filePath 文件路径
+     * @return 排除命令集合，文件不是当前活动文档时返回空集合
      */
-    private void parseFileHeader(String filePath) {
-        if (filePath == null || workspace == null) {
-            return;
+    private CommandNameSet getExcludedCommands(String filePath) {
+        Document doc = activeDocument;
+        if (filePath == null || doc == null || !filePath.equals(doc.getFilePath())) {
+            return CommandNameSet.EMPTY;
         }
-        
-        // 如果已经解析过，直接返回
-        if (excludedCommandsMap.containsKey(filePath)) {
-            return;
+        long version = doc.getVersion();
+        HeaderCache cached = headerCache.get(filePath);
+        if (cached != null && cached.version() == version) {
+            return cached.excluded();
         }
         
+        String firstLine = null;
         try {
-            // 获取文档
-            Document doc = workspace.getActiveDocument();
-            if (doc == null || !doc.getFilePath().equals(filePath)) {
-                // 如果当前活动文档不是目标文件，尝试从 documents 中查找
-                Map<String, Document> documents = workspace.getDocuments();
-                doc = documents.get(filePath);
-            }
-            
-            if (doc == null || doc.getLineCount() == 0) {
-                // 文件不存在或为空，初始化排除列表为空
-                excludedCommandsMap.put(filePath, new HashSet<>());
-                return;
-            }
-            
-            // 读取第一行
-            String firstLine = doc.getLine(1);
-            if (firstLine == null) {
-                excludedCommandsMap.put(filePath, new HashSet<>());
-                return;
+            if (doc.getLineCount() > 0) {
+                firstLine = doc.getLine(1);
             }
-            
+        } catch (Exception e) {
+            System.err.println("[log warn] 解析文件头失败: " + e.getMessage());
+        }
+        
+        CommandNameSet excluded = cached != null && Objects.equals(cached.header(), firstLine)
+                ? cached.excluded()
+                : parseFileHeader(firstLine);
+        headerCache.put(filePath, new HeaderCache(version, firstLine, excluded));
+        return excluded;
+    }
 
-            // 检查是否以 "# log" 开头
-            if (!firstLine.startsWith("# log")) {
-                excludedCommandsMap.put(filePath, new HashSet<>());
-                return;
-            }
-            
-            // 解析排除命令列表
-            // 语法：`# log -e <cmd> [-e <cmd> ...]`
-            // 每个 -e 后面跟一个命令名
-            Set<String> excludedCommands = new HashSet<>();
-            
-            // 检查是否有 -e 参数
-            if (firstLine.contains("-e")) {
-                String[] parts = firstLine.split("\\s+");
-                for (int i = 0; i < parts.length; i++) {
-                    if (parts[i].equals("-e") && i + 1 < parts.length) {
-                        // 找到 -e，下一个部分就是命令名
-                        String cmdName = parts[i + 1].trim();
-                        if (!cmdName.isEmpty() && !cmdName.equals("-e")) {
-                            excludedCommands.add(cmdName);
-                        }
-                        i++; // 跳过已处理的命令名
-                    }
+    /**
+     * 解析文件头，提取排除命令列表
+     * 语法：`# log -e cmd1 -e cmd2 ...` 或 `# log`
+     * 
+     * @param firstLine 文件第一行
+     */
+    static CommandNameSet parseFileHeader(String firstLine) {
+        // 检查是否以 "# log" 开头
+        if (firstLine == null || !firstLine.startsWith("# log") || !firstLine.contains("-e")) {
+            return CommandNameSet.EMPTY;
+        }
+        
+        // 每个 -e 后面跟一个命令名
+        List<String> excludedCommands = new ArrayList<>();
+        String[] parts = firstLine.split("\\s+");
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].equals("-e") && i + 1 < parts.length) {
+                String cmdName = parts[i + 1].trim();
+                if (!cmdName.isEmpty() && !cmdName.equals("-e")) {
+                    excludedCommands.add(cmdName);
                 }
+                i++; // 跳过已处理的命令名
             }
-            
-            // 缓存解析结果
-            excludedCommandsMap.put(filePath, excludedCommands);
-            
-        } catch (Exception e) {
-            // 解析失败，使用空排除列表
-            System.err.println("[log warn] 解析文件头失败: " + e.getMessage());
-            excludedCommandsMap.put(filePath, new HashSet<>());
         }
+        return CommandNameSet.of(excludedCommands);
     }
     
     /**
@@ -409,18 +967,16 @@ public class LoggingService {
         if (filePath == null || commandName == null) {
             return false;
         }
-        
-        Set<String> excludedCommands = excludedCommandsMap.get(filePath);
-        if (excludedCommands == null) {
-            // 如果还没有解析过，先解析
-            parseFileHeader(filePath);
-            excludedCommands = excludedCommandsMap.get(filePath);
-        }
-        
-        if (excludedCommands == null) {
-            return false;
-        }
-        
-        return excludedCommands.contains(commandName);
+        return getExcludedCommands(filePath).contains(commandName);
+    }
+
+    /**
+     * 文件头解析结果
+     *
+     * @param version 解析时的文档版本
+     * @param header 解析时的第一行
+     * @param excluded 排除命令集合
+     */
+    private record HeaderCache(long version, String header, CommandNameSet excluded) {
     }
 }
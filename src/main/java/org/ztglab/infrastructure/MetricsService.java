@@ -0,0 +1,244 @@
+package org.ztglab.infrastructure;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.ztglab.command.AbstractCommand;
+import org.ztglab.command.commands.EditorCommandRequest;
+import org.ztglab.event.events.*;
+import org.ztglab.util.MonotonicClock;
+
+/**
+ * 指标服务 - 统计每类命令的执行耗时、失败率与吞吐量
+ *
+ * 工作方式：
+ * 1. 监听 CommandCompletedEvent / CommandFailedEvent，按命令类型记录耗时（从发出到完成）
+ * 2. 编辑器命令（insert、append-child 等）额外按命令名单独统计
+ * 3. stats 命令查看当前统计；可选地定期把统计写入文件
+ *
+ * 耗时记录在 LatencyHistogram 中，记录过程不分配对象，不影响命令执行路径
+ */
+public class MetricsService {
+
+    private static final DateTimeFormatter DUMP_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // 命令类型 -> 指标
+    private final Map<String, CommandMetrics> byCommandType = new ConcurrentHashMap<>();
+    // 编辑器命令名 -> 指标
+    private final Map<String, CommandMetrics> byEditorCommand = new ConcurrentHashMap<>();
+
+    // 统计起点（单调时间）
+    private volatile long startNanos = MonotonicClock.now();
+
+    // 定期导出
+    private ScheduledExecutorService dumpScheduler;
+    private volatile Path dumpFile;
+
+    public MetricsService() {
+    }
+
+    /**
+     * 处理命令完成事件
+     */
+    public void onEvent(CommandCompletedEvent event) {
+        record(event.getCommand(), false);
+    }
+
+    /**
+     * 处理命令失败事件
+     */
+    public void onEvent(CommandFailedEvent event) {
+        record(event.getCommand(), true);
+    }
+
+    /**
+     * 处理工作区关闭事件：配置了定期导出时，退出前再导出一次
+     */
+    public void onEvent(WorkspaceClosingEvent event) {
+        Path file = dumpFile;
+        if (file != null) {
+            dumpQuietly(file);
+        }
+    }
+
+    private void record(AbstractCommand command, boolean failed) {
+        if (command == null) {
+            return;
+        }
+        long elapsed = command.getElapsedNanos();
+        if (elapsed < 0) {
+            return;
+        }
+        byCommandType.computeIfAbsent(command.getCommandType(), k -> new CommandMetrics())
+                .record(elapsed, failed);
+        if (command instanceof EditorCommandRequest request) {
+            byEditorCommand.computeIfAbsent(request.getCommandName(), k -> new CommandMetrics())
+                    .record(elapsed, failed);
+        }
+    }
+
+    /**
+     * 获取某类命令的耗时直方图，没有记录时返回null
+     */
+    public LatencyHistogram getHistogram(String commandType) {
+        CommandMetrics metrics = byCommandType.get(commandType);
+        return metrics == null ? null : metrics.histogram;
+    }
+
+    /**
+     * 获取某个编辑器命令的耗时直方图，没有记录时返回null
+     */
+    public LatencyHistogram getEditorCommandHistogram(String commandName) {
+        CommandMetrics metrics = byEditorCommand.get(commandName);
+        return metrics == null ? null : metrics.histogram;
+    }
+
+    /**
+     * 清空所有统计并重新开始计时
+     */
+    public void reset() {
+        byCommandType.clear();
+        byEditorCommand.clear();
+        startNanos = MonotonicClock.now();
+    }
+
+    /**
+     * 生成可读的统计报告
+     */
+    public String render() {
+        double seconds = (MonotonicClock.now() - startNanos) / 1_000_000_000.0;
+        long total = byCommandType.values().stream().mapToLong(m -> m.histogram.getCount()).sum();
+        long failures = byCommandType.values().stream().mapToLong(m -> m.failures.sum()).sum();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("命令统计: 运行 %.1f 秒, 共 %d 条命令, 失败 %d 条, 吞吐 %.1f 条/秒%n",
+                seconds, total, failures, seconds > 0 ? total / seconds : 0.0));
+        appendTable(sb, "按命令类型:", byCommandType);
+        appendTable(sb, "按编辑器命令:", byEditorCommand);
+        return sb.toString().stripTrailing();
+    }
+
+    private static void appendTable(StringBuilder sb, String title, Map<String, CommandMetrics> metricsMap) {
+        if (metricsMap.isEmpty()) {
+            return;
+        }
+        sb.append(title).append(System.lineSeparator());
+        // 列名用 ASCII，中文在等宽终端中占两列会破坏对齐
+        sb.append(String.format("  %-24s %8s %7s %10s %10s %10s %10s %10s%n",
+                "command", "count", "errors", "mean", "p50", "p90", "p99", "max"));
+
+        // 按累计耗时从高到低排列，最值得关注的命令排在前面
+        List<Map.Entry<String, CommandMetrics>> entries = new ArrayList<>(metricsMap.entrySet());
+        entries.sort(Comparator.comparingLong(
+                (Map.Entry<String, CommandMetrics> e) -> e.getValue().histogram.getTotalNanos()).reversed());
+
+        for (Map.Entry<String, CommandMetrics> entry : entries) {
+            LatencyHistogram h = entry.getValue().histogram;
+            long count = h.getCount();
+            double errorRate = count == 0 ? 0.0 : 100.0 * entry.getValue().failures.sum() / count;
+            sb.append(String.format("  %-24s %8d %6.1f%% %10s %10s %10s %10s %10s%n",
+                    entry.getKey(), count, errorRate,
+                    formatNanos(h.getMeanNanos()),
+                    formatNanos(h.getValueAtPercentile(50)),
+                    formatNanos(h.getValueAtPercentile(90)),
+                    formatNanos(h.getValueAtPercentile(99)),
+                    formatNanos(h.getMaxNanos())));
+        }
+    }
+
+    /**
+     * 格式化耗时
+     */
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.2fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.2fs", nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * 把当前统计写入文件（覆盖）
+     */
+    public void dump(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        String content = "# " + LocalDateTime.now().format(DUMP_TIME_FORMAT) + System.lineSeparator()
+                + render() + System.lineSeparator();
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private void dumpQuietly(Path file) {
+        try {
+            dump(file);
+        } catch (IOException e) {
+            System.err.println("[metrics warn] 导出统计失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 开始定期把统计写入文件
+     *
+     * @param file 目标文件
+     * @param intervalSeconds 导出间隔（秒）
+     */
+    public synchronized void startPeriodicDump(Path file, long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("导出间隔必须大于0");
+        }
+        stopPeriodicDump();
+        this.dumpFile = file;
+        this.dumpScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpScheduler.scheduleAtFixedRate(() -> dumpQuietly(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止定期导出
+     */
+    public synchronized void stopPeriodicDump() {
+        if (dumpScheduler != null) {
+            dumpScheduler.shutdownNow();
+            dumpScheduler = null;
+        }
+        dumpFile = null;
+    }
+
+    /**
+     * 单类命令的指标：耗时直方图 + 失败次数
+     */
+    private static final class CommandMetrics {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        private void record(long nanos, boolean failed) {
+            histogram.record(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+    }
+}
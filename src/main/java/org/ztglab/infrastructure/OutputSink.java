@@ -0,0 +1,37 @@
+package org.ztglab.infrastructure;
+
+/**
+ * 输出接口 - 命令执行过程中面向用户的输出统一经由此接口
+ *
+ * 实现可以直接写控制台、批量缓冲后再写，或写入任意目标（测试、批处理、服务端），
+ * 调用方不需要替换全局的 System.out / System.err
+ */
+public interface OutputSink {
+
+    /**
+     * 输出普通信息（不换行）
+     */
+    void print(String text);
+
+    /**
+     * 输出一行普通信息
+     */
+    void println(String line);
+
+    /**
+     * 输出空行
+     */
+    default void println() {
+        println("");
+    }
+
+    /**
+     * 输出一行错误信息
+     */
+    void error(String line);
+
+    /**
+     * 把尚未写出的内容写到目标（读取用户输入之前必须调用）
+     */
+    void flush();
+}
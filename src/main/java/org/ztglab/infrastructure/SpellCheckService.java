@@ -0,0 +1,274 @@
+package org.ztglab.infrastructure;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ztglab.command.AbstractCommand;
+import org.ztglab.command.commands.EditorCommandRequest;
+import org.ztglab.command.commands.RedoCommand;
+import org.ztglab.command.commands.UndoCommand;
+import org.ztglab.event.events.*;
+import org.ztglab.spellcheck.SpellCheckReport;
+import org.ztglab.spellcheck.SpellIssue;
+import org.ztglab.workspace.Document;
+import org.ztglab.workspace.IEditor;
+import org.ztglab.workspace.Workspace;
+
+/**
+ * 后台拼写检查服务：在虚拟线程上异步执行拼写检查，并缓存每个文档的最新结果
+ *
+ * 工作方式：
+ * 1. 监听 CommandCompletedEvent，编辑类命令完成后为活动文档安排一次后台检查
+ * 2. 每个文档独立防抖：等待 debounce 时间后才真正检查，期间有新的编辑则取消旧任务
+ * 3. 检查基于调度时的内容快照，完成后写入缓存（只保留版本号最新的结果）
+ * 4. spell-check 命令直接返回缓存中的最新结果；从未检查过的文档才同步检查一次
+ *
+ * 失败策略：后台检查失败（如 XML 暂时不合法）时保留上一次结果，不打印任何信息。
+ */
+public class SpellCheckService {
+
+    // 默认防抖时间（毫秒）
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // 文件路径 -> 最新完成的检查报告
+    private final Map<String, SpellCheckReport> reports = new ConcurrentHashMap<>();
+    // 文件路径 -> 尚未完成的后台检查
+    private final Map<String, PendingCheck> pending = new ConcurrentHashMap<>();
+    // 缓存代数：invalidateAll 时自增，之前发起的检查结果不再写入缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+    private volatile boolean backgroundEnabled = true;
+
+    // 当前活动文档（由 ActiveDocumentChangedEvent 维护）
+    private Document activeDocument;
+    private Workspace workspace;
+
+    public SpellCheckService() {
+    }
+
+    /**
+     * 设置工作区（用于查找文档对应的编辑器）
+     */
+    public void setWorkspace(Workspace workspace) {
+        this.workspace = workspace;
+    }
+
+    /**
+     * 设置防抖时间
+     */
+    public void setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = Math.max(0, debounceMillis);
+    }
+
+    /**
+     * 是否在编辑后自动进行后台检查
+     */
+    public void setBackgroundEnabled(boolean backgroundEnabled) {
+        this.backgroundEnabled = backgroundEnabled;
+    }
+
+    /**
+     * 是否在编辑后自动进行后台检查
+     */
+    public boolean isBackgroundEnabled() {
+        return backgroundEnabled;
+    }
+
+    /**
+     * 获取文档的拼写检查报告
+     * 有缓存时立即返回最新完成的结果（若已过期则顺便安排一次后台检查）；
+     * 从未检查过时在当前线程同步检查一次。
+     *
+     * @param doc 目标文档
+     * @param editor 文档对应的编辑器
+     * @return 最新的检查报告，其版本号可能落后于文档当前版本
+     */
+    public SpellCheckReport getReport(Document doc, IEditor editor) throws Exception {
+        String path = doc.getFilePath();
+        SpellCheckReport report = reports.get(path);
+        if (report != null) {
+            if (report.getVersion() != doc.getVersion()) {
+                schedule(doc, editor);
+            }
+            return report;
+        }
+
+        long gen = generation.get();
+        SpellCheckReport fresh = new SpellCheckReport(path, doc.getVersion(), editor.spellCheck(doc.getContent()));
+        store(fresh, gen);
+        return fresh;
+    }
+
+    /**
+     * 获取缓存中的最新报告（不触发检查）
+     */
+    public SpellCheckReport getLatestReport(String filePath) {
+        return filePath == null ? null : reports.get(filePath);
+    }
+
+    /**
+     * 为文档安排一次后台检查
+     * 同一版本已有结果或已在排队时忽略；否则取消该文档尚未完成的旧任务。
+     */
+    public void schedule(Document doc, IEditor editor) {
+        String path = doc.getFilePath();
+        long version = doc.getVersion();
+
+        SpellCheckReport existing = reports.get(path);
+        if (existing != null && existing.getVersion() == version) {
+            return;
+        }
+        PendingCheck current = pending.get(path);
+        if (current != null && current.version == version) {
+            return;
+        }
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        // 在调用线程上取内容快照，后台线程不直接读取 Document
+        String content = doc.getContent();
+        long gen = generation.get();
+        // 先登记再执行：任务可能立即结束（防抖为 0 或检查失败），其 finally 必须能看到这条登记
+        FutureTask<Void> task = new FutureTask<>(() -> run(path, version, gen, content, editor), null);
+        PendingCheck check = new PendingCheck(version, task);
+        PendingCheck previous = pending.put(path, check);
+        if (previous != null) {
+            previous.future.cancel(true);
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 服务已关闭
+            pending.remove(path, check);
+        }
+    }
+
+    /**
+     * 取消文档尚未完成的后台检查
+     */
+    public void cancel(String filePath) {
+        PendingCheck previous = pending.remove(filePath);
+        if (previous != null) {
+            previous.future.cancel(true);
+        }
+    }
+
+    /**
+     * 丢弃所有缓存结果（如用户词典变化后）
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (String path : pending.keySet()) {
+            cancel(path);
+        }
+        reports.clear();
+    }
+
+    /**
+     * 停止后台检查
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        pending.clear();
+    }
+
+    private void run(String path, long version, long gen, String content, IEditor editor) {
+        try {
+            // 防抖：等待期间若有新的编辑，本任务会被取消（中断）
+            Thread.sleep(debounceMillis);
+            List<SpellIssue> issues = editor.spellCheck(content);
+            if (Thread.currentThread().isInterrupted()) {
+                return; // 已被更新的编辑取代
+            }
+            store(new SpellCheckReport(path, version, issues), gen);
+        } catch (InterruptedException e) {
+            // 被新的编辑取消
+        } catch (Exception e) {
+            // 后台检查失败时保留上一次结果
+        } finally {
+            pending.computeIfPresent(path, (k, p) -> p.version == version ? null : p);
+        }
+    }
+
+    private void store(SpellCheckReport report, long gen) {
+        if (gen != generation.get()) {
+            return; // 发起检查后缓存已失效
+        }
+        reports.merge(report.getFilePath(), report,
+                (old, fresh) -> fresh.getVersion() >= old.getVersion() ? fresh : old);
+    }
+
+    private boolean isEditCommand(AbstractCommand command) {
+        return command instanceof EditorCommandRequest
+                || command instanceof UndoCommand
+                || command instanceof RedoCommand;
+    }
+
+    // ==================== 事件监听器实现 ====================
+
+    /**
+     * 处理活动文档变更事件
+     */
+    public void onEvent(ActiveDocumentChangedEvent event) {
+        this.activeDocument = event.getNewDocument();
+    }
+
+    /**
+     * 处理命令完成事件：编辑类命令完成后安排后台检查
+     */
+    public void onEvent(CommandCompletedEvent event) {
+        if (!backgroundEnabled || activeDocument == null || workspace == null) {
+            return;
+        }
+        if (!isEditCommand(event.getCommand())) {
+            return;
+        }
+        schedule(activeDocument, workspace.getEditorService(activeDocument));
+    }
+
+    /**
+     * 处理文档关闭事件
+     */
+    public void onEvent(DocumentClosedEvent event) {
+        cancel(event.getFilePath());
+        reports.remove(event.getFilePath());
+    }
+
+    /**
+     * 处理文档路径更新事件（另存为后旧路径的结果不再有效）
+     */
+    public void onEvent(DocumentPathUpdatedEvent event) {
+        cancel(event.getOldPath());
+        reports.remove(event.getOldPath());
+    }
+
+    /**
+     * 处理工作区关闭事件
+     */
+    public void onEvent(WorkspaceClosingEvent event) {
+        shutdown();
+    }
+
+    /**
+     * 排队中的后台检查
+     */
+    private static final class PendingCheck {
+        private final long version;
+        private final Future<?> future;
+
+        private PendingCheck(long version, Future<?> future) {
+            this.version = version;
+            this.future = future;
+        }
+    }
+}
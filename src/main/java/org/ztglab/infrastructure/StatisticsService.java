@@ -219,7 +219,7 @@ public class StatisticsService {
                     // 输出统计信息
                     String fileName = new java.io.File(currentActiveFilePath).getName();
                     String totalDuration = getDuration(currentActiveFilePath);
-                    System.out.println("[统计] 完成最后一次时长统计: " + fileName + " (总时长: " + totalDuration + ")");
+                    ApplicationContext.output().println("[统计] 完成最后一次时长统计: " + fileName + " (总时长: " + totalDuration + ")");
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,186 @@
+package org.ztglab.infrastructure;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ztglab.event.events.*;
+import org.ztglab.workspace.Document;
+import org.ztglab.workspace.Workspace;
+
+/**
+ * 工作区内存管理：估算已加载文档占用的堆内存，超出预算时释放最久未使用的未修改文档的内容
+ *
+ * 工作方式（均在命令线程上，每条命令结束时执行）：
+ * 1. 记录每个文档的估算大小，只在文档版本号或加载状态变化时重新估算
+ * 2. 活动文档、刚被编辑或刚被加载（包括释放后再次访问而重新读取）的文档记为最近使用
+ * 3. 总量超出预算时，按最近使用时间从旧到新释放未修改、非活动、磁盘上存在的文档，
+ *    文档退回延迟加载状态，下次访问时从磁盘重新读取（见 Document.evict）
+ *
+ * 已修改的文档和未命名缓冲区从不释放，因此总量可能仍高于预算。
+ * 只读访问已加载的非活动文档（如 show 指定文件）不更新使用时间。
+ * 释放后若磁盘上的文件被其他程序修改，重新读取得到的是磁盘上的新内容，
+ * 文档版本号随之加一、撤销历史被清空（见 Document.evict），依赖版本号的缓存不会返回过期结果。
+ */
+public class WorkspaceMemoryManager {
+
+    // 默认预算：最大堆的四分之一
+    public static final long DEFAULT_BUDGET_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    // 文档 -> 上次检查时的版本号、加载状态、估算大小与最近使用时间（只在命令线程上访问）
+    private Map<Document, Tracked> tracked = new IdentityHashMap<>();
+    // 逻辑时钟：每次检查加一，用于比较最近使用的先后
+    private long clock;
+    private long totalBytes;
+    private long evictedCount;
+
+    private volatile long budgetBytes;
+    private Workspace workspace;
+
+    private static final class Tracked {
+        long version;
+        boolean loaded;
+        long bytes;
+        long lastUsed;
+    }
+
+    public WorkspaceMemoryManager() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * @param budgetBytes 已加载文档的内存预算（字节），<=0 表示不限制
+     */
+    public WorkspaceMemoryManager(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * 设置工作区，重新开始跟踪
+     */
+    public void setWorkspace(Workspace workspace) {
+        this.workspace = workspace;
+        tracked = new IdentityHashMap<>();
+        totalBytes = 0;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * 设置内存预算（字节），<=0 表示不限制；下一条命令结束时生效
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * 最近一次检查时已加载文档的估算总大小（字节）
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 累计释放的文档次数
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * 更新各文档的估算大小与最近使用时间，超出预算时释放最久未使用的未修改文档
+     * 应在命令线程上调用（文档不是线程安全的）
+     */
+    public void enforce() {
+        Workspace ws = this.workspace;
+        if (ws == null) {
+            return;
+        }
+        clock++;
+        Document active = ws.getActiveDocument();
+        Map<Document, Tracked> current = new IdentityHashMap<>(ws.getDocuments().size() * 2);
+        long total = 0;
+        for (Document doc : ws.getDocuments().values()) {
+            Tracked entry = tracked.get(doc);
+            boolean loaded = doc.isLoaded();
+            if (entry == null || entry.version != doc.getVersion() || entry.loaded != loaded) {
+                // 新打开、被编辑或被重新加载：重新估算并记为最近使用
+                if (entry == null) {
+                    entry = new Tracked();
+                }
+                entry.version = doc.getVersion();
+                entry.loaded = loaded;
+                entry.bytes = doc.estimateFootprint();
+                entry.lastUsed = clock;
+            } else if (doc == active) {
+                entry.lastUsed = clock;
+            }
+            current.put(doc, entry);
+            total += entry.bytes;
+        }
+        // 已关闭的文档不再跟踪
+        tracked = current;
+        totalBytes = total;
+
+        long budget = budgetBytes;
+        if (budget > 0 && total > budget) {
+            evict(active, total - budget);
+        }
+    }
+
+    /**
+     * 按最近使用时间从旧到新释放文档，直到释放量不少于 excess
+     */
+    private void evict(Document active, long excess) {
+        List<Map.Entry<Document, Tracked>> candidates = new ArrayList<>();
+        for (Map.Entry<Document, Tracked> item : tracked.entrySet()) {
+            Document doc = item.getKey();
+            if (doc != active && item.getValue().loaded && !doc.isModified()) {
+                candidates.add(item);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(item -> item.getValue().lastUsed));
+
+        long released = 0;
+        for (Map.Entry<Document, Tracked> item : candidates) {
+            if (released >= excess) {
+                break;
+            }
+            Document doc = item.getKey();
+            String path = doc.getFilePath();
+            if (isReloadable(path) && doc.evict(() -> FileUtil.readContent(path))) {
+                Tracked entry = item.getValue();
+                released += entry.bytes;
+                entry.loaded = false;
+                entry.bytes = 0;
+                evictedCount++;
+            }
+        }
+        totalBytes -= released;
+    }
+
+    // 只释放能从磁盘重新读取的文档（未命名缓冲区和已被删除的文件除外）
+    private static boolean isReloadable(String path) {
+        return path != null && !path.startsWith("<unsaved-") && Files.isRegularFile(Paths.get(path));
+    }
+
+    /**
+     * 处理命令完成事件：检查内存预算
+     */
+    public void onEvent(CommandCompletedEvent event) {
+        enforce();
+    }
+
+    /**
+     * 处理命令失败事件：失败的命令也可能已加载或改动文档
+     */
+    public void onEvent(CommandFailedEvent event) {
+        enforce();
+    }
+}
@@ -12,13 +12,24 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 工作区状态持久化仓储
  * 负责将工作区的状态（打开的文件列表、活动文件等）保存到磁盘，并从磁盘恢复。
+ * 同时保存文本状态文件 workspace.state 与二进制快照 workspace.snap（见 WorkspaceSnapshot）；
+ * 恢复时优先使用快照，未保存的修改随快照一起恢复，快照缺失或损坏时退回文本状态。
+ * 恢复的文档先登记为延迟加载的占位文档，第一次访问时才读取内容；
+ * 活动文档和最近打开的几个文档由后台虚拟线程预读，控制台可以立即使用。
+ * 启动时若恢复目录中有上次会话自动保存的内容，提示用户使用 recover 命令找回。
  */
 public class WorkspaceRepository {
     
     private static final String STATE_FILE = "workspace.state";
+    // 二进制快照（含未保存的内容），存在且可读时优先使用
+    private static final String SNAPSHOT_FILE = "workspace.snap";
+    // 恢复后在后台预读的文档个数（活动文档优先，其余按打开顺序从后往前）
+    private static final int PREFETCH_LIMIT = 8;
 
     public void save(Workspace workspace) {
         try {
@@ -36,13 +47,70 @@ public class WorkspaceRepository {
             Path configPath = Path.of(STATE_FILE);
             Files.write(configPath, lines, StandardCharsets.UTF_8,
                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            System.out.println("工作区状态已保存到 " + STATE_FILE);
+            output().println("工作区状态已保存到 " + STATE_FILE);
+        } catch (Exception e) {
+            output().error("保存工作区状态失败: " + e.getMessage());
+        }
+
+        Path snapshotPath = Path.of(SNAPSHOT_FILE);
+        try {
+            WorkspaceSnapshot.write(snapshotPath, workspace);
         } catch (Exception e) {
-            System.err.println("保存工作区状态失败: " + e.getMessage());
+            output().error("保存工作区快照失败: " + e.getMessage());
+            // 旧快照已过期，删除后下次启动使用文本状态
+            try {
+                Files.deleteIfExists(snapshotPath);
+            } catch (Exception ignored) {
+            }
         }
     }
 
     public void restore(Workspace workspace) {
+        if (!restoreSnapshot(workspace)) {
+            restoreState(workspace);
+        }
+        prefetch(workspace);
+
+        int recoverable = autosave().listRecoverable().size();
+        if (recoverable > 0) {
+            output().println("发现 " + recoverable + " 个文件有未保存的自动保存内容，输入 recover 恢复");
+        }
+    }
+
+    /**
+     * 从二进制快照恢复，已修改文档的内容直接取自快照（第一次访问时才从快照缓冲区解码）
+     *
+     * @return 快照不存在或无法读取时返回 false
+     */
+    private boolean restoreSnapshot(Workspace workspace) {
+        Path snapshotPath = Path.of(SNAPSHOT_FILE);
+        if (!Files.exists(snapshotPath)) return false;
+        WorkspaceSnapshot.State state;
+        try {
+            state = WorkspaceSnapshot.read(snapshotPath);
+        } catch (Exception e) {
+            output().error("读取工作区快照失败，改用 " + STATE_FILE + ": " + e.getMessage());
+            return false;
+        }
+        for (WorkspaceSnapshot.Entry entry : state.entries()) {
+            try {
+                restoreDocument(workspace, entry.filePath(), entry.hasContent() ? entry::decodeContent : null,
+                        entry.modified());
+            } catch (Exception e) {
+                output().error("恢复文件失败: " + entry.filePath() + " - " + e.getMessage());
+            }
+        }
+        WorkspaceSnapshot.Entry active = state.activeEntry();
+        if (active != null) {
+            restoreActive(workspace, active.filePath());
+        }
+        return true;
+    }
+
+    /**
+     * 从文本状态文件恢复，所有文档的内容都从磁盘读取
+     */
+    private void restoreState(Workspace workspace) {
         Path configPath = Path.of(STATE_FILE);
         if (!Files.exists(configPath)) return;
         try {
@@ -58,34 +126,93 @@ public class WorkspaceRepository {
                         String modPart = parts[1].trim();
                         String path = pathPart.substring("File: ".length()).trim();
                         boolean modified = Boolean.parseBoolean(modPart.substring("Modified: ".length()).trim());
-
-                        if (Files.exists(Paths.get(path))) {
-                            // 恢复时需要读取文件内容
-                            String content = FileUtil.readContent(path);
-                            workspace.openDocument(path, content);
-                        } else {
-                            workspace.init(path);
-                        }
-                        Document doc = workspace.getDocument(path);
-                        if (doc != null) {
-                            doc.setModified(modified);
-                        }
+                        restoreDocument(workspace, path, null, modified);
                     } catch (Exception e) {
-                        System.err.println("恢复文件失败: " + line + " - " + e.getMessage());
+                        output().error("恢复文件失败: " + line + " - " + e.getMessage());
                     }
                 }
             }
             if (activePath != null) {
+                restoreActive(workspace, activePath);
+            }
+        } catch (Exception e) {
+            output().error("加载工作区状态失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 恢复单个文档（登记为占位文档，不读取内容）
+     *
+     * @param content 文档内容的加载器；为null时第一次访问时从磁盘读取，磁盘上不存在时新建
+     */
+    private void restoreDocument(Workspace workspace, String path, Document.ContentLoader content,
+                                 boolean modified) throws Exception {
+        if (content != null) {
+            workspace.openPlaceholder(path, content, modified);
+        } else if (Files.exists(Paths.get(path))) {
+            workspace.openPlaceholder(path, () -> FileUtil.readContent(path), modified);
+        } else {
+            workspace.init(path);
+            Document doc = workspace.getDocuments().get(path);
+            if (doc != null) {
+                doc.setModified(modified);
+            }
+        }
+    }
+
+    /**
+     * 在后台预读活动文档和最近打开的文档；读取失败时忽略，第一次访问时再报告
+     */
+    private void prefetch(Workspace workspace) {
+        List<Document> targets = new ArrayList<>();
+        Document active = workspace.getActiveDocument();
+        if (active != null && !active.isLoaded()) {
+            targets.add(active);
+        }
+        List<Document> documents = new ArrayList<>(workspace.getDocuments().values());
+        for (int i = documents.size() - 1; i >= 0 && targets.size() < PREFETCH_LIMIT; i--) {
+            Document doc = documents.get(i);
+            if (doc != active && !doc.isLoaded()) {
+                targets.add(doc);
+            }
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+        Thread.ofVirtual().name("restore-prefetch").start(() -> {
+            for (Document doc : targets) {
                 try {
-                    Document doc = workspace.getDocument(activePath);
-                    workspace.setActiveDocument(doc);
-                    System.out.println("恢复活动文件: " + activePath);
+                    doc.preload();
                 } catch (Exception e) {
-                    // ignore if not found
+                    // 第一次访问时重试并报告
                 }
             }
-        } catch (Exception e) {
-            System.err.println("加载工作区状态失败: " + e.getMessage());
+        });
+    }
+
+    private void restoreActive(Workspace workspace, String activePath) {
+        Document doc = workspace.getDocuments().get(activePath);
+        if (doc != null) {
+            workspace.setActiveDocument(doc);
+            output().println("恢复活动文件: " + activePath);
         }
     }
+
+    /**
+     * 用恢复目录中自动保存的内容恢复文档
+     * 已打开的文档被替换为恢复的内容，未打开的文档（包括未命名缓冲区）直接打开；恢复后的文档处于已修改状态。
+     *
+     * @return 恢复的文档个数
+     */
+    public int recover(Workspace workspace) {
+        List<AutosaveService.Recovered> recovered = autosave().listRecoverable();
+        for (AutosaveService.Recovered item : recovered) {
+            workspace.recoverDocument(item.filePath(), item.content());
+        }
+        return recovered.size();
+    }
+
+    private static AutosaveService autosave() {
+        return ApplicationContext.getInstance().getAutosaveService();
+    }
 }
@@ -0,0 +1,159 @@
+package org.ztglab.infrastructure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ztglab.workspace.Document;
+import org.ztglab.workspace.Workspace;
+
+/**
+ * 工作区二进制快照 - 退出时保存打开的文档及其未保存的内容，启动时一次读回
+ *
+ * 文件格式（整数均为大端）：
+ *   文件头  "ZTWS" + 版本号(1字节)
+ *   int     文档个数
+ *   int     活动文档下标（没有活动文档时为-1）
+ *   每个文档：
+ *     字符串  路径
+ *     byte    标志位：FLAG_MODIFIED 已修改，FLAG_CONTENT 带内容
+ *     字符串  内容（仅 FLAG_CONTENT）
+ * 字符串为 int(UTF-8 字节数) + 字节。编辑器类型由路径决定，不单独记录。
+ *
+ * 未修改的文档与磁盘一致，只记录路径，恢复时从磁盘读取；已修改的文档（包括未命名缓冲区）
+ * 记录完整内容，恢复后保留未保存的修改。版本号不同或文件损坏时读取失败，调用方退回文本格式。
+ *
+ * 读取时把整个文件一次读入堆缓冲区，只解码路径，内容保留为缓冲区的只读切片，
+ * 在文档第一次被访问时才解码为字符串。不使用内存映射：映射要等垃圾回收才解除，
+ * 期间 Windows 上无法替换或删除快照文件，下一次保存会失败而留下过期快照。
+ */
+public final class WorkspaceSnapshot {
+
+    static final byte[] MAGIC = {'Z', 'T', 'W', 'S', 2};
+
+    private static final int FLAG_MODIFIED = 1;
+    private static final int FLAG_CONTENT = 2;
+
+    /**
+     * 快照中的一个文档
+     *
+     * @param filePath 文件路径
+     * @param modified 是否有未保存的修改
+     * @param content 文档内容（UTF-8，快照缓冲区的只读切片）；为null时从磁盘读取
+     */
+    public record Entry(String filePath, boolean modified, ByteBuffer content) {
+
+        public boolean hasContent() {
+            return content != null;
+        }
+
+        /**
+         * 把内容解码为字符串（每次调用都重新解码，可作为占位文档的加载器）
+         */
+        public String decodeContent() {
+            return content == null ? null : StandardCharsets.UTF_8.decode(content.duplicate()).toString();
+        }
+    }
+
+    /**
+     * 快照内容
+     *
+     * @param entries 按打开顺序排列的文档
+     * @param activeIndex 活动文档下标，没有活动文档时为-1
+     */
+    public record State(List<Entry> entries, int activeIndex) {
+
+        public Entry activeEntry() {
+            return activeIndex >= 0 && activeIndex < entries.size() ? entries.get(activeIndex) : null;
+        }
+    }
+
+    private WorkspaceSnapshot() {
+    }
+
+    /**
+     * 把工作区写入快照文件（临时文件 + 原子替换）
+     */
+    public static void write(Path path, Workspace workspace) throws IOException {
+        FileUtil.writeBytesAtomically(path, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.write(MAGIC);
+            List<Document> documents = new ArrayList<>(workspace.getDocuments().values());
+            out.writeInt(documents.size());
+            out.writeInt(documents.indexOf(workspace.getActiveDocument()));
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            for (Document doc : documents) {
+                writeString(out, doc.getFilePath());
+                boolean modified = doc.isModified();
+                out.writeByte(modified ? FLAG_MODIFIED | FLAG_CONTENT : 0);
+                if (modified) {
+                    content.reset();
+                    Writer writer = new OutputStreamWriter(content, StandardCharsets.UTF_8);
+                    doc.writeTo(writer);
+                    writer.flush();
+                    out.writeInt(content.size());
+                    content.writeTo(out);
+                }
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * 读取快照文件（读入堆缓冲区后立即关闭文件，内容不解码，见 Entry.content）
+     *
+     * @throws IOException 文件头或版本号不正确、文件不完整
+     */
+    public static State read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).asReadOnlyBuffer();
+        try {
+            byte[] header = new byte[MAGIC.length];
+            buffer.get(header);
+            if (!Arrays.equals(header, MAGIC)) {
+                throw new IOException("不是支持的工作区快照: " + path);
+            }
+            int count = buffer.getInt();
+            int activeIndex = buffer.getInt();
+            if (count < 0) {
+                throw new IOException("工作区快照已损坏: " + path);
+            }
+            List<Entry> entries = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                String filePath = StandardCharsets.UTF_8.decode(readSlice(buffer)).toString();
+                int flags = buffer.get();
+                ByteBuffer content = (flags & FLAG_CONTENT) != 0 ? readSlice(buffer) : null;
+                entries.add(new Entry(filePath, (flags & FLAG_MODIFIED) != 0, content));
+            }
+            return new State(entries, activeIndex);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("工作区快照已损坏: " + path);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取一个字符串的字节（缓冲区的切片，不复制）
+     */
+    private static ByteBuffer readSlice(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        ByteBuffer slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+}
@@ -0,0 +1,74 @@
+package org.ztglab.spellcheck;
+
+/**
+ * 布隆过滤器 - 字符串成员的快速否定判断
+ *
+ * mightContain 返回 false 时一定不存在；返回 true 时可能存在（存在一定误判率），
+ * 需再查精确集合确认。容量固定，超出预期元素数量后误判率上升，由调用方负责重建。
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final int numBits;
+    private final int numHashes;
+
+    /**
+     * @param expectedInsertions 预期元素数量
+     * @param falsePositiveRate 期望误判率 (0, 1)
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        m = Math.max(64, Math.min(m, Integer.MAX_VALUE - 63L));
+        this.bits = new long[(int) ((m + 63) / 64)];
+        this.numBits = bits.length * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * ln2));
+    }
+
+    /**
+     * 加入元素
+     */
+    public void add(String value) {
+        int h1 = hash1(value);
+        int h2 = hash2(value);
+        for (int i = 0; i < numHashes; i++) {
+            int index = Math.floorMod(h1 + i * h2, numBits);
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * 判断元素是否可能存在
+     */
+    public boolean mightContain(String value) {
+        int h1 = hash1(value);
+        int h2 = hash2(value);
+        for (int i = 0; i < numHashes; i++) {
+            int index = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 第一个哈希：String.hashCode（已缓存在字符串中）再做一次混合
+    private static int hash1(String value) {
+        int h = value.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    // 第二个哈希：FNV-1a，强制为奇数以保证步长遍历不同位置
+    private static int hash2(String value) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x01000193;
+        }
+        return h | 1;
+    }
+}
@@ -5,7 +5,7 @@ import java.util.List;
 public interface ISpellChecker {
     /**
      * @param text 输入文本
-     * @return 拼写错误结果列表，每个元素为可读字符串（如: 第1行，第5列: "recieve" -> 建议: receive）
+     * @return 拼写错误结果列表，每个元素包含行号、列号、长度与建议（展示格式见 {@link SpellIssue#format()}）
      */
-    List<String> check(String text) throws Exception;
+    List<SpellIssue> check(String text) throws Exception;
 }
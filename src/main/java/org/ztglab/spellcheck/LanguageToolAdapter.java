@@ -3,49 +3,99 @@ package org.ztglab.spellcheck;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.language.AmericanEnglish;
+import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.spelling.SpellingCheckRule;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class LanguageToolAdapter implements ISpellChecker {
 
-    private final JLanguageTool tool;
+    // 规则库加载耗时且占用大量内存，第一次检查时才创建（调用方需持有 lock）
+    private JLanguageTool tool;
+    // JLanguageTool 非线程安全；后台检查与前台命令可能并发调用，用锁串行化
+    // （使用 ReentrantLock 而非 synchronized，避免虚拟线程长时间钉住载体线程）
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 用户词典（可为 null）及已同步到拼写规则的版本
+    private final UserDictionary dictionary;
+    private long syncedVersion = -1;
 
     public LanguageToolAdapter() {
-        Language lang = new AmericanEnglish();
-        this.tool = new JLanguageTool(lang);
+        this(null);
+    }
+
+    public LanguageToolAdapter(UserDictionary dictionary) {
+        this.dictionary = dictionary;
     }
 
     @Override
-    public List<String> check(String text) throws Exception {
-        List<RuleMatch> matches = tool.check(text);
-        List<String> result = new ArrayList<>();
+    public List<SpellIssue> check(String text) throws Exception {
+        List<RuleMatch> matches;
+        lock.lock();
+        try {
+            if (tool == null) {
+                Language lang = new AmericanEnglish();
+                tool = new JLanguageTool(lang);
+            }
+            syncDictionary();
+            matches = tool.check(text);
+        } finally {
+            lock.unlock();
+        }
+        List<SpellIssue> result = new ArrayList<>(matches.size());
+        if (matches.isEmpty()) {
+            return result;
+        }
 
+        // 每次检查只扫描一遍文本建立行索引，之后每个匹配二分定位行列
+        LineIndex index = LineIndex.of(text);
         for (RuleMatch match : matches) {
             int fromPos = match.getFromPos();
-            int line = 1;
-            int col = 1;
-            for (int i = 0; i < fromPos; i++) {
-                if (text.charAt(i) == '\n') {
-                    line++;
-                    col = 1;
-                } else {
-                    col++;
-                }
+            int toPos = match.getToPos();
+            String word = text.substring(fromPos, toPos);
+            // 规则未覆盖到的用户词汇（如非拼写类规则命中）在格式化前过滤
+            if (dictionary != null && dictionary.contains(word)) {
+                continue;
             }
-
-            String wrong = text.substring(match.getFromPos(), match.getToPos());
-            String suggestion = match.getSuggestedReplacements().isEmpty()
-                    ? "（无建议）"
-                    : match.getSuggestedReplacements().get(0);
-
-            result.add(String.format(
-                    "第%d行，第%d列: \"%s\" -> 建议: %s",
-                    line, col, wrong, suggestion
+            result.add(new SpellIssue(
+                    index.lineOf(fromPos),
+                    index.columnOf(fromPos),
+                    toPos - fromPos,
+                    word,
+                    match.getSuggestedReplacements(),
+                    match.getMessage()
             ));
         }
 
         return result;
     }
+
+    /**
+     * 将用户词典同步为拼写规则的忽略词，使 LanguageTool 在规则执行阶段直接跳过这些词，
+     * 不再为它们计算建议。词典未变化时不做任何事。调用方需持有 lock。
+     */
+    private void syncDictionary() {
+        if (dictionary == null || dictionary.getVersion() == syncedVersion) {
+            return;
+        }
+        long version = dictionary.getVersion();
+        List<String> tokens = new ArrayList<>();
+        for (String term : dictionary.getTerms()) {
+            tokens.add(term);
+            String lower = term.toLowerCase(Locale.ROOT);
+            if (!lower.equals(term)) {
+                tokens.add(lower);
+            }
+        }
+        for (Rule rule : tool.getAllActiveRules()) {
+            if (rule instanceof SpellingCheckRule spellingRule) {
+                spellingRule.addIgnoreTokens(tokens);
+            }
+        }
+        syncedVersion = version;
+    }
 }
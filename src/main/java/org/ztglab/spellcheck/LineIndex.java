@@ -0,0 +1,62 @@
+package org.ztglab.spellcheck;
+
+import java.util.Arrays;
+
+/**
+ * 行偏移索引 - 将文本中的字符偏移量映射为行号/列号
+ *
+ * 构建时扫描一次文本，记录每一行起始字符的偏移量；
+ * 查询时对起始偏移数组做二分查找，单次查询 O(log n)。
+ */
+public final class LineIndex {
+
+    // lineStarts[i] 表示第 i+1 行第一个字符的偏移量
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    private LineIndex(int[] lineStarts, int lineCount) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * 为文本构建行偏移索引
+     */
+    public static LineIndex of(String text) {
+        int[] starts = new int[16];
+        int count = 1; // 第1行从偏移0开始
+        int length = text == null ? 0 : text.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        return new LineIndex(starts, count);
+    }
+
+    /**
+     * 获取偏移量所在的行号（从1开始）
+     */
+    public int lineOf(int offset) {
+        int pos = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        // 命中行首时直接返回；否则插入点的前一个位置即为所在行
+        return pos >= 0 ? pos + 1 : -pos - 1;
+    }
+
+    /**
+     * 获取偏移量所在的列号（从1开始）
+     */
+    public int columnOf(int offset) {
+        return offset - lineStarts[lineOf(offset) - 1] + 1;
+    }
+
+    /**
+     * 获取总行数
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+}
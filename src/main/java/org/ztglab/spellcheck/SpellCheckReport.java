@@ -0,0 +1,58 @@
+package org.ztglab.spellcheck;
+
+import java.util.List;
+
+/**
+ * 拼写检查报告 - 某个文档在某一内容版本上的完整检查结果
+ */
+public final class SpellCheckReport {
+
+    private final String filePath;
+    private final long version;
+    private final List<SpellIssue> issues;
+    private final long completedAt;
+
+    public SpellCheckReport(String filePath, long version, List<SpellIssue> issues) {
+        this.filePath = filePath;
+        this.version = version;
+        this.issues = List.copyOf(issues);
+        this.completedAt = System.currentTimeMillis();
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * 检查时文档的内容版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public List<SpellIssue> getIssues() {
+        return issues;
+    }
+
+    /**
+     * 检查完成时间（毫秒时间戳）
+     */
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * 以控制台格式渲染报告
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder("拼写检查结果:");
+        if (issues.isEmpty()) {
+            sb.append("\n无拼写错误");
+        } else {
+            for (SpellIssue issue : issues) {
+                sb.append('\n').append(issue.format());
+            }
+        }
+        return sb.toString();
+    }
+}
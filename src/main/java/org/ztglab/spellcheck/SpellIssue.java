@@ -0,0 +1,86 @@
+package org.ztglab.spellcheck;
+
+import java.util.List;
+
+/**
+ * 拼写检查结果 - 单个问题的结构化描述
+ *
+ * 只保存位置、原文和建议等数据，展示格式由调用方决定（format 提供默认的控制台格式）。
+ */
+public final class SpellIssue {
+
+    private final int line;
+    private final int column;
+    private final int length;
+    private final String word;
+    private final List<String> suggestions;
+    private final String message;
+    // 所属 XML 元素名（纯文本检查时为 null）
+    private final String element;
+
+    public SpellIssue(int line, int column, int length, String word,
+                      List<String> suggestions, String message) {
+        this(line, column, length, word, suggestions, message, null);
+    }
+
+    private SpellIssue(int line, int column, int length, String word,
+                       List<String> suggestions, String message, String element) {
+        this.line = line;
+        this.column = column;
+        this.length = length;
+        this.word = word;
+        this.suggestions = suggestions == null ? List.of() : List.copyOf(suggestions);
+        this.message = message;
+        this.element = element;
+    }
+
+    /**
+     * 返回归属到指定 XML 元素的副本
+     */
+    public SpellIssue withElement(String element) {
+        return new SpellIssue(line, column, length, word, suggestions, message, element);
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getElement() {
+        return element;
+    }
+
+    /**
+     * 默认的控制台展示格式
+     * 例如: 第1行，第5列: "recieve" -> 建议: receive
+     */
+    public String format() {
+        String suggestion = suggestions.isEmpty() ? "（无建议）" : suggestions.get(0);
+        String text = String.format("第%d行，第%d列: \"%s\" -> 建议: %s", line, column, word, suggestion);
+        return element == null ? text : String.format("元素 %s: %s", element, text);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -0,0 +1,192 @@
+package org.ztglab.spellcheck;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 用户词典 - 工作区级别的自定义词汇与忽略列表
+ *
+ * 1. 词典词汇（add）：持久化到词典文件，每行一个词，# 开头为注释
+ * 2. 忽略词汇（ignore）：仅在本次运行中有效
+ *
+ * 成员判断先查布隆过滤器，命中后再查紧凑的不可变哈希集合；
+ * 判断不区分大小写。写操作重建快照（写少读多），读操作无锁，可在后台检查线程中调用。
+ */
+public class UserDictionary {
+
+    // 默认词典文件（与 workspace.state 一样位于工作目录）
+    public static final String DEFAULT_FILE = "workspace.dic";
+
+    private static final int MIN_FILTER_CAPACITY = 256;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Path file;
+    // 原始写法（用于展示、持久化以及交给 LanguageTool）
+    private final Set<String> words = new LinkedHashSet<>();
+    private final Set<String> ignored = new LinkedHashSet<>();
+
+    private volatile Snapshot snapshot = new Snapshot(Set.of(), new BloomFilter(MIN_FILTER_CAPACITY, FALSE_POSITIVE_RATE));
+    private volatile long version;
+
+    /**
+     * 创建仅在内存中的词典
+     */
+    public UserDictionary() {
+        this.file = null;
+    }
+
+    /**
+     * 创建并加载词典文件（文件不存在时为空词典）
+     */
+    public UserDictionary(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * 加入词典词汇并持久化
+     * @return 如果是新词返回 true
+     */
+    public synchronized boolean add(String word) {
+        String term = clean(word);
+        if (term == null || !words.add(term)) {
+            return false;
+        }
+        if (file != null) {
+            try {
+                Files.writeString(file, term + System.lineSeparator(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("[dict warn] 写入词典失败: " + e.getMessage());
+            }
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * 加入本次运行的忽略词汇
+     * @return 如果是新词返回 true
+     */
+    public synchronized boolean ignore(String word) {
+        String term = clean(word);
+        if (term == null || !ignored.add(term)) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * 判断词是否属于用户词典或忽略列表（不区分大小写）
+     */
+    public boolean contains(String word) {
+        if (word == null || word.isEmpty()) {
+            return false;
+        }
+        String key = normalize(word);
+        Snapshot current = snapshot;
+        return current.filter.mightContain(key) && current.terms.contains(key);
+    }
+
+    /**
+     * 获取所有词汇（词典词汇在前，忽略词汇在后）
+     */
+    public synchronized List<String> getTerms() {
+        List<String> terms = new ArrayList<>(words);
+        terms.addAll(ignored);
+        return terms;
+    }
+
+    /**
+     * 获取持久化的词典词汇
+     */
+    public synchronized List<String> getWords() {
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * 获取本次运行的忽略词汇
+     */
+    public synchronized List<String> getIgnored() {
+        return new ArrayList<>(ignored);
+    }
+
+    /**
+     * 获取版本号：每次词汇变化自增，供检查器判断是否需要重新同步
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return snapshot.terms.size();
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String term = clean(line);
+                if (term != null && !term.startsWith("#")) {
+                    words.add(term);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[dict warn] 读取词典失败: " + e.getMessage());
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        Set<String> keys = new HashSet<>();
+        for (String term : words) {
+            keys.add(normalize(term));
+        }
+        for (String term : ignored) {
+            keys.add(normalize(term));
+        }
+        BloomFilter filter = new BloomFilter(Math.max(MIN_FILTER_CAPACITY, keys.size() * 2), FALSE_POSITIVE_RATE);
+        for (String key : keys) {
+            filter.add(key);
+        }
+        snapshot = new Snapshot(Set.copyOf(keys), filter);
+        version++;
+    }
+
+    private static String clean(String word) {
+        if (word == null) {
+            return null;
+        }
+        String term = word.trim();
+        return term.isEmpty() ? null : term;
+    }
+
+    private static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 不可变的成员判断快照
+     */
+    private static final class Snapshot {
+        private final Set<String> terms;
+        private final BloomFilter filter;
+
+        private Snapshot(Set<String> terms, BloomFilter filter) {
+            this.terms = terms;
+            this.filter = filter;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.ztglab.ui;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.infrastructure.BufferedOutputSink;
+import org.ztglab.infrastructure.OutputSink;
+import org.ztglab.ui.ConsoleUI.ExitRequestException;
+
+/**
+ * 批处理执行器 - 无界面地逐行执行脚本文件中的命令
+ *
+ * 与 ConsoleUI 的区别：
+ * 1. 不打印欢迎信息和提示符，命令输出写入大缓冲区，结束时统一刷新
+ * 2. quiet 模式下丢弃命令的普通输出，只保留错误信息
+ * 3. 出错时按策略停止（fail-fast）或继续执行（continue）
+ * 4. 结束时打印执行条数、失败条数与吞吐量（不含启动耗时）
+ * 5. 关闭命令历史和编辑后的后台拼写检查（spell-check 命令仍会同步检查）
+ * 6. 日志改为异步写入，脚本结束时全部写出
+ *
+ * 脚本格式与交互输入相同：每行一条命令，空行和以 # 开头的行被忽略；
+ * 需要确认的命令（如 close 未保存文件）从脚本的下一行读取 y/n
+ */
+public class BatchRunner {
+
+    // 批处理输出缓冲区大小
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final Path script;
+    private final boolean quiet;
+    private final boolean failFast;
+
+    public BatchRunner(Path script, boolean quiet, boolean failFast) {
+        this.script = script;
+        this.quiet = quiet;
+        this.failFast = failFast;
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @return 执行结果
+     */
+    public Result run() throws IOException {
+        if (!Files.isRegularFile(script)) {
+            throw new IOException("脚本文件不存在: " + script);
+        }
+
+        PrintStream bufferedOut = new PrintStream(new BufferedOutputStream(
+                new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER_SIZE), false, StandardCharsets.UTF_8);
+        PrintStream bufferedErr = new PrintStream(new BufferedOutputStream(
+                new FileOutputStream(FileDescriptor.err), OUTPUT_BUFFER_SIZE), false, StandardCharsets.UTF_8);
+
+        ApplicationContext context = ApplicationContext.getInstance();
+        // 命令输出写入批处理自己的缓冲流，不替换全局的 System.out / System.err
+        OutputSink originalOutput = context.getOutput();
+        context.setOutput(new BufferedOutputSink(bufferedOut, bufferedErr, quiet));
+        boolean lowOverhead = context.getCommandBus().isLowOverhead();
+        boolean backgroundSpellCheck = context.getSpellCheckService().isBackgroundEnabled();
+        boolean asyncLogging = context.getLoggingService().isAsync();
+        // 批量执行时不需要命令历史，也没有人查看后台拼写检查结果
+        context.getCommandBus().setLowOverhead(true);
+        context.getSpellCheckService().setBackgroundEnabled(false);
+        // 日志写盘移出命令执行路径
+        context.getLoggingService().setAsync(true);
+
+        long executed = 0;
+        long failed = 0;
+        boolean aborted = false;
+        long start = System.nanoTime();
+
+        try (Scanner scanner = new Scanner(script, StandardCharsets.UTF_8)) {
+            CommandExecutor executor = new CommandExecutor(scanner);
+            start = System.nanoTime();
+            long lineNumber = 0;
+            while (scanner.hasNextLine()) {
+                String input = scanner.nextLine().trim();
+                lineNumber++;
+                if (input.isEmpty() || input.startsWith("#")) {
+                    continue;
+                }
+
+                executed++;
+                try {
+                    executor.execute(input);
+                } catch (ExitRequestException e) {
+                    break;
+                } catch (Exception e) {
+                    failed++;
+                    context.getOutput().error("错误: 第" + lineNumber + "行 [" + input + "]: " + e.getMessage());
+                    if (failFast) {
+                        aborted = true;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            // 等待异步事件处理完毕，再恢复输出
+            context.getEventBus().drain(5, TimeUnit.SECONDS);
+            // 脚本可能没有以 exit 结束，写出仍在缓冲区中的日志
+            context.getLoggingService().flush();
+            context.getLoggingService().setAsync(asyncLogging);
+            context.getCommandBus().setLowOverhead(lowOverhead);
+            context.getSpellCheckService().setBackgroundEnabled(backgroundSpellCheck);
+            context.setOutput(originalOutput);
+            bufferedOut.flush();
+            bufferedErr.flush();
+        }
+
+        return new Result(executed, failed, System.nanoTime() - start, aborted);
+    }
+
+    /**
+     * 批处理结果
+     *
+     * @param executed 执行的命令条数（含失败）
+     * @param failed 失败的命令条数
+     * @param elapsedNanos 总耗时（纳秒）
+     * @param aborted 是否因 fail-fast 提前停止
+     */
+    public record Result(long executed, long failed, long elapsedNanos, boolean aborted) {
+
+        /**
+         * 吞吐量（条/秒）
+         */
+        public double throughput() {
+            return elapsedNanos <= 0 ? 0.0 : executed * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        /**
+         * 执行摘要
+         */
+        public String summary() {
+            return String.format("批处理%s: 执行 %d 条命令, 失败 %d 条, 耗时 %.3f 秒, 吞吐 %.1f 条/秒",
+                    aborted ? "中止" : "完成", executed, failed, elapsedNanos / 1_000_000_000.0, throughput());
+        }
+    }
+}
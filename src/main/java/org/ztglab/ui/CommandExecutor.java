@@ -6,13 +6,25 @@ import org.ztglab.command.commands.*;
 import org.ztglab.ui.ConsoleUI.ExitRequestException;
 
 import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.infrastructure.ErrorOnlyOutputSink;
+import org.ztglab.infrastructure.LogQuery;
+import org.ztglab.infrastructure.LoggingService;
+import org.ztglab.infrastructure.OutputSink;
 import org.ztglab.infrastructure.WorkspaceRepository;
 import org.ztglab.infrastructure.FileUtil;
 import org.ztglab.workspace.IEditor;
 
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 命令执行器 - 负责解析命令并通过命令总线分发
  * 
@@ -20,6 +32,7 @@ import java.util.Scanner;
  * - 只负责命令解析（命令名 + 参数提取）
  * - 创建命令实例并通过命令总线分发
  * - 由命令总线将命令路由到相应的处理器
+ * - 命令输出经由 OutputSink 缓冲，每条命令结束时统一写出
  */
 public class CommandExecutor {
 
@@ -35,11 +48,16 @@ public class CommandExecutor {
         
         ApplicationContext context = ApplicationContext.getInstance();
         this.commandBus = context.getCommandBus();
+        context.getSpellCheckService().setWorkspace(workspace);
         
         registerHandlers();
         
         // 恢复工作区状态
         this.workspaceRepository.restore(this.workspace);
+        // 恢复出的文档作为自动保存的基准，之后有修改才写入恢复目录
+        context.getAutosaveService().setWorkspace(workspace);
+        context.getMemoryManager().setWorkspace(workspace);
+        output().flush();
     }
 
     private void registerHandlers() {
@@ -51,6 +69,7 @@ public class CommandExecutor {
         commandBus.registerHandler(EditFileCommand.class, new EditFileCommand.Handler(workspace));
         commandBus.registerHandler(ShowEditorListCommand.class, new ShowEditorListCommand.Handler(workspace));
         commandBus.registerHandler(ShowDirTreeCommand.class, new ShowDirTreeCommand.Handler(workspace));
+        commandBus.registerHandler(RecoverCommand.class, new RecoverCommand.Handler(workspace, workspaceRepository));
         
         // 通用显示命令
         commandBus.registerHandler(ShowCommand.class, new ShowCommand.Handler(workspace));
@@ -66,6 +85,12 @@ public class CommandExecutor {
         commandBus.registerHandler(LogOnCommand.class, new LogOnCommand.Handler(workspace));
         commandBus.registerHandler(LogOffCommand.class, new LogOffCommand.Handler(workspace));
         commandBus.registerHandler(LogShowCommand.class, new LogShowCommand.Handler(workspace));
+
+        // 用户词典命令
+        commandBus.registerHandler(UserDictionaryCommand.class, new UserDictionaryCommand.Handler(workspace));
+
+        // 统计命令
+        commandBus.registerHandler(StatsCommand.class, new StatsCommand.Handler());
         
         // 注册编辑器命令
         for (IEditor editor : workspace.getRegisteredEditors()) {
@@ -78,6 +103,18 @@ public class CommandExecutor {
      * @param input 完整的用户输入
      */
     public void execute(String input) throws Exception {
+        try {
+            parseAndDispatch(input);
+        } finally {
+            // 每条命令结束时统一写出本条命令的全部输出
+            output().flush();
+        }
+    }
+
+    /**
+     * 解析命令并分发到命令总线
+     */
+    private void parseAndDispatch(String input) throws Exception {
         // 解析命令和参数
         String[] parts = input.split("\\s+", 2);
         String commandName = parts[0].toLowerCase();
@@ -97,6 +134,7 @@ public class CommandExecutor {
             case "dir-tree" -> cmd = createDirTree(args);
             case "undo" -> cmd = createUndo();
             case "redo" -> cmd = createRedo();
+            case "recover" -> cmd = createRecover();
             case "exit" -> executeExit(); // Exit is special
             
             // ==================== 文本编辑命令 (现在通过通用请求分发) ====================
@@ -111,9 +149,14 @@ public class CommandExecutor {
             case "log-on" -> cmd = createLogOn(args);
             case "log-off" -> cmd = createLogOff(args);
             case "log-show" -> cmd = createLogShow(args);
+            case "log-replay" -> executeReplay(args); // 回放的每条命令各自经过命令总线
             // ==================== 拼写检查 ==================== 视作(仿照)编辑命令处理
             case "spell-check" -> cmd = new EditorCommandRequest("spellcheck", args);
+            case "dict-add" -> cmd = createDictionary(UserDictionaryCommand.Action.ADD, args);
+            case "dict-ignore" -> cmd = createDictionary(UserDictionaryCommand.Action.IGNORE, args);
+            case "dict-list" -> cmd = createDictionary(UserDictionaryCommand.Action.LIST, args);
             // ==================== 其他命令 ====================
+            case "stats" -> cmd = createStats(args);
             case "help" -> executeHelp();
             
             default -> throw new IllegalArgumentException(
@@ -131,14 +174,27 @@ public class CommandExecutor {
 
     /**
      * 加载文件
-     * 格式: load <file>
+     * 格式: load <file|glob>...
      */
     private LoadFileCommand createLoad(String args) throws Exception {
         if (args.isEmpty()) {
-            throw new IllegalArgumentException("用法: load <filepath>");
+            throw new IllegalArgumentException("用法: load <filepath|glob>...");
         }
         
         String filepath = args.trim();
+        // 整个参数就是一个已存在的文件（路径中可能含空格）时按单个文件加载
+        if (Files.isRegularFile(Paths.get(filepath))) {
+            return new LoadFileCommand(filepath);
+        }
+        // 只有带引号、通配符，或按空格拆开后每一项都是已存在的文件时才拆分为多个参数；
+        // 否则与以前一样把整个参数当作一个路径（如 load my notes.txt 新建一个文件）
+        if (filepath.indexOf('"') >= 0 || LoadFileCommand.isGlob(filepath)) {
+            return new LoadFileCommand(tokenize(filepath));
+        }
+        List<String> tokens = tokenize(filepath);
+        if (tokens.size() > 1 && tokens.stream().allMatch(token -> Files.isRegularFile(Paths.get(token)))) {
+            return new LoadFileCommand(tokens);
+        }
         return new LoadFileCommand(filepath);
     }
 
@@ -216,6 +272,14 @@ public class CommandExecutor {
         return new ShowEditorListCommand();
     }
 
+    /**
+     * 恢复自动保存的文件
+     * 格式: recover
+     */
+    private RecoverCommand createRecover() {
+        return new RecoverCommand();
+    }
+
     /**
      * 显示目录树
      * 格式: dir-tree [path]
@@ -248,7 +312,8 @@ public class CommandExecutor {
     private void executeExit() throws Exception {
         // 检查未保存的文件
         for (org.ztglab.workspace.Document doc : workspace.getModifiedDocuments()) {
-            System.out.println("文件未保存: " + doc.getFilePath() + " 是否保存? (y/n)");
+            output().println("文件未保存: " + doc.getFilePath() + " 是否保存? (y/n)");
+            output().flush();
             String ans = scanner.nextLine();
             if (ans.equalsIgnoreCase("y")) {
                 // 使用 FileUtil 直接保存，并通知 workspace 更新状态
@@ -308,21 +373,217 @@ public class CommandExecutor {
 
     /**
      * 显示日志
-     * 格式: log-show [file]
+     * 格式: log-show [file] [--tail N] [--since T] [--until T] [--grep regex] [--page N] [--page-size N]
+     * 时间 T 为 yyyyMMdd[-HH:mm[:ss]]；regex 含空格时用双引号括起
      */
     private LogShowCommand createLogShow(String args) throws Exception {
-        String filepath = args.trim();
-        return new LogShowCommand(filepath.isEmpty() ? null : filepath);
+        List<String> tokens = tokenize(args.trim());
+        String filepath = null;
+        boolean hasOption = false;
+        int tail = 0;
+        long since = -1;
+        long until = -1;
+        String grep = null;
+        int page = 0;
+        int pageSize = LogQuery.DEFAULT_PAGE_SIZE;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (!token.startsWith("--")) {
+                if (filepath != null) {
+                    throw new IllegalArgumentException("多余的参数: " + token);
+                }
+                filepath = token;
+                continue;
+            }
+            if (i + 1 >= tokens.size()) {
+                throw new IllegalArgumentException(token + " 缺少参数值");
+            }
+            String value = tokens.get(++i);
+            hasOption = true;
+            switch (token) {
+                case "--tail" -> tail = parsePositive(token, value);
+                case "--since" -> since = LogQuery.parseTime(value, false);
+                case "--until" -> until = LogQuery.parseTime(value, true);
+                case "--grep" -> grep = value;
+                case "--page" -> page = parsePositive(token, value);
+                case "--page-size" -> pageSize = parsePositive(token, value);
+                default -> throw new IllegalArgumentException("未知选项: " + token);
+            }
+        }
+        // 指定了 --page-size 但没有指定页码时从第一页开始
+        if (pageSize != LogQuery.DEFAULT_PAGE_SIZE && page == 0) {
+            page = 1;
+        }
+        return new LogShowCommand(filepath,
+                hasOption ? new LogQuery(tail, since, until, grep, page, pageSize) : null);
+    }
+
+    /**
+     * 回放日志：按顺序重新执行日志中记录的命令（每条都经过命令总线），不做停顿
+     * 格式: log-replay [file|logfile] [--quiet] [--fail-fast]
+     * 参数是已存在的日志文件时直接读取，否则视为文档路径，回放其日志（优先二进制日志）；
+     * 省略时回放当前活动文件的日志。exit 与 log-replay 本身不会被回放。
+     */
+    private void executeReplay(String args) throws Exception {
+        String target = null;
+        boolean quiet = false;
+        boolean failFast = false;
+        for (String token : tokenize(args.trim())) {
+            switch (token) {
+                case "--quiet" -> quiet = true;
+                case "--fail-fast" -> failFast = true;
+                default -> {
+                    if (token.startsWith("--") || target != null) {
+                        throw new IllegalArgumentException("用法: log-replay [file] [--quiet] [--fail-fast]");
+                    }
+                    target = token;
+                }
+            }
+        }
+
+        LoggingService loggingService = ApplicationContext.getInstance().getLoggingService();
+        Path logFile;
+        if (target != null && Files.isRegularFile(Paths.get(target))) {
+            logFile = Paths.get(target);
+        } else {
+            String filePath = target;
+            if (filePath == null) {
+                org.ztglab.workspace.Document doc = workspace.getActiveDocument();
+                if (doc == null) throw new Exception("没有活动文件");
+                filePath = doc.getFilePath();
+            }
+            logFile = loggingService.resolveLogFile(filePath);
+            if (logFile == null) {
+                throw new Exception("找不到日志: " + filePath);
+            }
+        }
+        List<String> commands = loggingService.readLoggedCommands(logFile);
+
+        ApplicationContext context = ApplicationContext.getInstance();
+        OutputSink originalOutput = context.getOutput();
+        if (quiet) {
+            context.setOutput(new ErrorOnlyOutputSink(originalOutput));
+        }
+        long executed = 0;
+        long failed = 0;
+        long start = System.nanoTime();
+        try {
+            for (String command : commands) {
+                String name = command.split("\\s+", 2)[0].toLowerCase();
+                if (name.equals("exit") || name.equals("log-replay")) {
+                    continue;
+                }
+                executed++;
+                try {
+                    parseAndDispatch(command);
+                } catch (Exception e) {
+                    failed++;
+                    output().error("回放失败 [" + command + "]: " + e.getMessage());
+                    if (failFast) {
+                        break;
+                    }
+                } finally {
+                    output().flush();
+                }
+            }
+        } finally {
+            if (quiet) {
+                context.setOutput(originalOutput);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        output().println(String.format("回放完成: 执行 %d 条命令, 失败 %d 条, 耗时 %.3f 秒, 吞吐 %.1f 条/秒",
+                executed, failed, elapsed / 1_000_000_000.0,
+                elapsed > 0 ? executed * 1_000_000_000.0 / elapsed : 0.0));
+    }
+
+    private static int parsePositive(String option, String value) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException(option + " 需要正整数: " + value);
+    }
+
+    /**
+     * 按空白切分参数，双引号括起的部分视为一个参数
+     */
+    private static List<String> tokenize(String args) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean pending = false;
+        for (char c : args.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+                pending = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (pending) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    pending = false;
+                }
+            } else {
+                current.append(c);
+                pending = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("引号未闭合");
+        }
+        if (pending) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    // ==================== 拼写检查 ====================
+
+    /**
+     * 用户词典
+     * 格式: dict-add <word...> | dict-ignore <word...> | dict-list
+     */
+    private UserDictionaryCommand createDictionary(UserDictionaryCommand.Action action, String args) throws Exception {
+        String trimmed = args.trim();
+        if (action != UserDictionaryCommand.Action.LIST && trimmed.isEmpty()) {
+            throw new IllegalArgumentException("用法: dict-add|dict-ignore <word...>");
+        }
+        List<String> words = trimmed.isEmpty() ? List.of() : Arrays.asList(trimmed.split("\\s+"));
+        return new UserDictionaryCommand(action, words);
     }
 
     // ==================== 其他命令 ====================
 
+    /**
+     * 命令耗时统计
+     * 格式: stats [reset | dump <file>]
+     */
+    private StatsCommand createStats(String args) throws Exception {
+        String[] parts = args.trim().split("\\s+", 2);
+        String option = parts[0].toLowerCase();
+        return switch (option) {
+            case "" -> new StatsCommand(StatsCommand.Action.SHOW, null);
+            case "reset" -> new StatsCommand(StatsCommand.Action.RESET, null);
+            case "dump" -> {
+                if (parts.length < 2 || parts[1].isBlank()) {
+                    throw new IllegalArgumentException("用法: stats dump <file>");
+                }
+                yield new StatsCommand(StatsCommand.Action.DUMP, parts[1].trim());
+            }
+            default -> throw new IllegalArgumentException("用法: stats [reset | dump <file>]");
+        };
+    }
+
     /**
      * 显示帮助信息
      * 格式: help
      */
     private void executeHelp() {
-        System.out.println(getHelpText());
+        output().println(getHelpText());
     }
 
     // ==================== 辅助方法 ====================
@@ -337,7 +598,7 @@ public class CommandExecutor {
             ╚════════════════════════════════════════════════════════════╝
             
             ==================== 工作区命令 ====================
-            load <file>              - 加载文件
+            load <file|glob>...      - 加载文件（可指定多个文件或通配符，如 src/**/*.xml）
             save [file|all]          - 保存文件（不指定参数保存当前文件）
             init <file> [with-log]   - 创建新文件
             close [file]             - 关闭文件
@@ -346,6 +607,7 @@ public class CommandExecutor {
             dir-tree [path]          - 显示目录树
             undo                     - 撤销
             redo                     - 重做
+            recover                  - 恢复上次异常退出前自动保存的文件
             exit                     - 退出程序
             
             ==================== 文本编辑命令 ====================
@@ -359,9 +621,23 @@ public class CommandExecutor {
             log-on [file]            - 启用日志记录
             log-off [file]           - 关闭日志记录
             log-show [file]          - 显示日志内容
+              [--tail N]             - 只显示最后 N 条
+              [--since T --until T]  - 按时间范围筛选，T 为 yyyyMMdd[-HH:mm[:ss]]
+              [--grep regex]         - 按正则筛选
+              [--page N --page-size M] - 分页显示（默认每页 50 条）
+            log-replay [file]        - 按顺序重新执行日志中的命令
+              [--quiet] [--fail-fast] - 不显示命令输出 / 遇到失败即停止
             
             ==================== 拼写检查 ====================
             spell-check[file]        -检查文本文件、xml文件中的拼写错误
+            dict-add <word...>       - 将词汇加入工作区用户词典
+            dict-ignore <word...>    - 本次运行中忽略词汇
+            dict-list                - 显示用户词典与忽略列表
+            
+            ==================== 统计命令 ====================
+            stats                    - 显示命令耗时分布、失败率与吞吐量
+            stats reset              - 清空命令统计
+            stats dump <file>        - 将命令统计写入文件
             
             ==================== 说明 ====================
             - 行号和列号从 1 开始计数
@@ -2,6 +2,8 @@ package org.ztglab.ui;
 
 import java.util.Scanner;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 控制台用户界面 - 简化版
  *
@@ -28,7 +30,8 @@ public class ConsoleUI {
 
         while (!shouldExit) {
             try {
-                System.out.print("> ");
+                output().print("> ");
+                output().flush();
                 String input = scanner.nextLine().trim();
 
                 if (input.isEmpty()) {
@@ -39,11 +42,13 @@ public class ConsoleUI {
             } catch (ExitRequestException e) {
                 // 正常退出信号
                 shouldExit = true;
-                System.out.println("再见！");
+                output().println("再见！");
             } catch (Exception e) {
-                System.err.println("错误: " + e.getMessage());
+                output().error("错误: " + e.getMessage());
+                output().flush();
             }
         }
+        output().flush();
 
         scanner.close();
     }
@@ -52,11 +57,12 @@ public class ConsoleUI {
      * 打印欢迎信息
      */
     private void printWelcome() {
-        System.out.println("╔════════════════════════════════════════╗");
-        System.out.println("║   文本编辑器 v1.0                      ║");
-        System.out.println("╚════════════════════════════════════════╝");
-        System.out.println("输入 help 查看帮助");
-        System.out.println();
+        output().println("╔════════════════════════════════════════╗");
+        output().println("║   文本编辑器 v1.0                      ║");
+        output().println("╚════════════════════════════════════════╝");
+        output().println("输入 help 查看帮助");
+        output().println();
+        output().flush();
     }
 
     /**
@@ -0,0 +1,36 @@
+package org.ztglab.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 单调时钟 - 用 System.nanoTime() 记录时间点，需要时再换算成墙上时间
+ *
+ * 热路径上只保存一个 long，不分配 LocalDateTime；
+ * 换算以类加载时的墙上时间为基准，适合日志展示，不受系统时间回拨影响
+ */
+public final class MonotonicClock {
+
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final long ORIGIN_EPOCH_MILLIS = System.currentTimeMillis();
+
+    private MonotonicClock() {
+    }
+
+    /**
+     * 当前单调时间（纳秒）
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 把单调时间换算为本地时间
+     */
+    public static LocalDateTime toLocalDateTime(long nanos) {
+        long offsetNanos = nanos - ORIGIN_NANOS;
+        Instant instant = Instant.ofEpochMilli(ORIGIN_EPOCH_MILLIS).plusNanos(offsetNanos);
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
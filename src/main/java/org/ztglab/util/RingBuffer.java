@@ -0,0 +1,116 @@
+package org.ztglab.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 定长环形缓冲区 - 只保留最近写入的若干条记录，内存占用恒定
+ *
+ * 无锁实现：
+ * 1. 写入方通过原子序号领取槽位，槽位中存放 (序号, 元素) 记录
+ * 2. 被整圈超越的旧写入（槽位中已是更新的序号）直接放弃，不会覆盖新记录
+ * 3. 读取方按序号校验槽位，只访问仍然有效的记录，不复制整个缓冲区
+ *
+ * @param <E> 元素类型
+ */
+public final class RingBuffer<E> {
+
+    private final AtomicReferenceArray<Entry<E>> slots;
+    private final int capacity;
+    // 下一个写入序号（也是累计写入总数）
+    private final AtomicLong head = new AtomicLong();
+    // 清空时的序号下限，小于它的记录视为已清除
+    private volatile long floor = 0;
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 写入一条记录，缓冲区已满时覆盖最旧的记录
+     */
+    public void add(E element) {
+        long sequence = head.getAndIncrement();
+        int index = (int) (sequence % capacity);
+        Entry<E> entry = new Entry<>(sequence, element);
+        while (true) {
+            Entry<E> current = slots.get(index);
+            if (current != null && current.sequence > sequence) {
+                return; // 已被更新的写入超越
+            }
+            if (slots.compareAndSet(index, current, entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按从旧到新的顺序访问最近的 limit 条记录（不复制缓冲区）
+     */
+    public void forEachRecent(int limit, Consumer<? super E> action) {
+        long end = head.get();
+        long start = Math.max(Math.max(floor, end - capacity), end - Math.max(limit, 0));
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry<E> entry = slots.get((int) (sequence % capacity));
+            // 尚未写完或已被覆盖的槽位跳过
+            if (entry != null && entry.sequence == sequence) {
+                action.accept(entry.element);
+            }
+        }
+    }
+
+    /**
+     * 按从旧到新的顺序访问所有保留的记录
+     */
+    public void forEach(Consumer<? super E> action) {
+        forEachRecent(capacity, action);
+    }
+
+    /**
+     * 复制当前保留的记录（从旧到新）
+     */
+    public List<E> toList() {
+        List<E> result = new ArrayList<>(size());
+        forEach(result::add);
+        return result;
+    }
+
+    /**
+     * 清空缓冲区（只移动序号下限，不释放槽位）
+     */
+    public void clear() {
+        floor = head.get();
+    }
+
+    /**
+     * 当前保留的记录数
+     */
+    public int size() {
+        long end = head.get();
+        return (int) (end - Math.max(floor, end - capacity));
+    }
+
+    /**
+     * 缓冲区容量
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 累计写入的记录数（包括已被覆盖的）
+     */
+    public long totalAdded() {
+        return head.get();
+    }
+
+    private record Entry<E>(long sequence, E element) {
+    }
+}
@@ -1,7 +1,11 @@
 package org.ztglab.workspace;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.ztglab.workspace.editor.OperationHistory;
 
@@ -12,6 +16,13 @@ import org.ztglab.workspace.editor.OperationHistory;
  * 2. 存储文件元数据（路径、修改状态）
  * 3. 管理操作历史（Undo/Redo）
  * 4. 提供核心内容操作方法
+ *
+ * 行存储采用写时复制：snapshot() 只把当前行列表标记为共享并返回只读视图，
+ * 之后第一次修改时才复制一份，快照不受后续编辑影响，可交给后台线程读取。
+ *
+ * 延迟加载：工作区恢复时登记的文档只有路径和元数据，第一次访问内容时才通过 ContentLoader 读取。
+ * 未修改的文档也可以释放已加载的内容（evict），退回延迟加载状态，下次访问时重新读取；
+ * 重新读取的内容与释放前不同（文件被其他程序修改）时视为一次内容变更：版本号加一并清空撤销历史。
  */
 public class Document {
 
@@ -21,6 +32,18 @@ public class Document {
     // 元数据
     private String filePath;
     private boolean modified;
+    // 内容版本号：每次内容变更自增，用于判断缓存结果是否过期
+    private long version;
+    // 行列表是否已被快照共享（共享时修改前需先复制）
+    private boolean shared;
+    // 尚未加载内容时的加载器，加载完成后置为null（可能由后台预读线程加载）
+    private volatile ContentLoader loader;
+    // 由 evict 释放时内容的哈希，重新读取后据此判断内容是否变化；未释放过时为null
+    private Long evictedHash;
+
+    // 内存估算：对象头与行列表本身、每行的 String 对象与数组头（字节），字符按 UTF-16 保守估算
+    private static final long DOCUMENT_OVERHEAD = 64;
+    private static final long LINE_OVERHEAD = 56;
     
     // 操作历史
     private OperationHistory history;
@@ -38,15 +61,129 @@ public class Document {
      * 从已有内容创建 Document
      */
     Document(String content) {
-        this.lines = new ArrayList<>();
-        if (content != null && !content.isEmpty()) {
-            String[] lineList = content.split("\n", -1);
-            this.lines.addAll(Arrays.asList(lineList));
-        }
+        this.lines = splitLines(content);
         this.history = new OperationHistory();
         this.modified = false;
     }
 
+    /**
+     * 创建延迟加载的 Document，内容在第一次访问时读取
+     */
+    static Document placeholder(ContentLoader loader) {
+        Document doc = new Document();
+        doc.loader = loader;
+        return doc;
+    }
+
+    private static List<String> splitLines(String content) {
+        List<String> result = new ArrayList<>();
+        if (content != null && !content.isEmpty()) {
+            result.addAll(Arrays.asList(content.split("\n", -1)));
+        }
+        return result;
+    }
+
+    // ==================== 延迟加载 ====================
+
+    /**
+     * 内容加载器
+     */
+    @FunctionalInterface
+    public interface ContentLoader {
+        /**
+         * @return 文档内容，null 表示空文档
+         */
+        String load() throws IOException;
+    }
+
+    /**
+     * 内容是否已加载
+     */
+    public boolean isLoaded() {
+        return loader == null;
+    }
+
+    /**
+     * 加载内容（已加载时直接返回），供后台预读使用
+     *
+     * @throws IOException 读取失败，文档保持未加载状态，下次访问时重试
+     */
+    public synchronized void preload() throws IOException {
+        ContentLoader pending = loader;
+        if (pending == null) {
+            return;
+        }
+        List<String> loaded = splitLines(pending.load());
+        if (evictedHash != null && contentHash(loaded) != evictedHash) {
+            // 释放期间文件被修改：基于版本号的缓存全部过期，撤销历史也不再适用于新内容
+            version++;
+            history.clear();
+        }
+        evictedHash = null;
+        lines = loaded;
+        loader = null;
+    }
+
+    /**
+     * 释放已加载的内容，退回延迟加载状态，下次访问时由 loader 重新读取
+     * 只适用于内容与 loader 读到的一致的文档（未修改的已保存文件）。释放时记录内容的哈希：
+     * 重新读到相同内容时版本号不变，基于版本号的缓存仍然有效；内容不同时版本号加一并清空撤销历史。
+     *
+     * @return 是否已释放；已修改或尚未加载的文档不释放
+     */
+    public synchronized boolean evict(ContentLoader loader) {
+        if (modified || this.loader != null) {
+            return false;
+        }
+        evictedHash = contentHash(lines);
+        // 未完成的快照仍持有旧的行列表，不受影响
+        lines = new ArrayList<>();
+        shared = false;
+        this.loader = loader;
+        return true;
+    }
+
+    // 64 位多项式哈希，行之间计入换行符
+    private static long contentHash(List<String> content) {
+        long hash = content.size();
+        for (int i = 0; i < content.size(); i++) {
+            String line = content.get(i);
+            for (int j = 0; j < line.length(); j++) {
+                hash = hash * 1_000_003L + line.charAt(j);
+            }
+            hash = hash * 1_000_003L + '\n';
+        }
+        return hash;
+    }
+
+    /**
+     * 估算已加载内容占用的堆内存（字节），不触发加载；未加载时为0
+     */
+    public long estimateFootprint() {
+        if (loader != null) {
+            return 0;
+        }
+        List<String> current = lines;
+        long bytes = DOCUMENT_OVERHEAD;
+        for (int i = 0; i < current.size(); i++) {
+            bytes += LINE_OVERHEAD + 2L * current.get(i).length();
+        }
+        return bytes;
+    }
+
+    /**
+     * 访问内容前调用：未加载时先加载
+     */
+    private void ensureLoaded() {
+        if (loader != null) {
+            try {
+                preload();
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取文件失败: " + filePath + " - " + e.getMessage(), e);
+            }
+        }
+    }
+
     // ==================== 元数据管理 ====================
     
     public String getFilePath() {
@@ -65,6 +202,13 @@ public class Document {
         this.modified = modified;
     }
 
+    /**
+     * 获取内容版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
     public OperationHistory getHistory() {
         return history;
     }
@@ -73,15 +217,57 @@ public class Document {
         this.history = history;
     }
 
+    /**
+     * 内容快照
+     *
+     * @param version 快照时的内容版本号
+     * @param lines 快照时的全部行（只读，不随文档后续修改变化）
+     */
+    public record Snapshot(long version, List<String> lines) {
+
+        /**
+         * 逐行写出快照内容（与 Document.writeTo 格式相同）
+         */
+        public void writeTo(Writer writer) throws IOException {
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0) {
+                    writer.write('\n');
+                }
+                writer.write(lines.get(i));
+            }
+        }
+    }
+
+    /**
+     * 获取当前内容的快照（不复制行列表，代价与文档大小无关）
+     */
+    public Snapshot snapshot() {
+        ensureLoaded();
+        shared = true;
+        return new Snapshot(version, Collections.unmodifiableList(lines));
+    }
+
+    /**
+     * 修改行列表前调用：若行列表已被快照共享，先复制一份
+     */
+    private void beforeWrite() {
+        if (shared) {
+            lines = new ArrayList<>(lines);
+            shared = false;
+        }
+    }
+
     // ==================== 增删改查操作 ====================
     /**
      * 追加文本
      */
     public void append(String text) {
+        ensureLoaded();
         if (text == null) {
             return;
         }
 
+        beforeWrite();
         // 处理换行符
         if (text.contains("\n")) {
             String[] parts = text.split("\n", -1);
@@ -93,6 +279,7 @@ public class Document {
             lines.add(text);
         }
         this.modified = true;
+        this.version++;
     }
 
     /**
@@ -103,6 +290,7 @@ public class Document {
      *  - 空文件插入非1:1位置：提示"空文件只能在1:1位置插入"
      */
     public void insert(int line, int col, String text) {
+        ensureLoaded();
         // 空文件特殊处理：只有一行且为空行
         if (getLineCount() == 1 && lines.get(0).isEmpty()) {
             if (line != 1 || col != 1) {
@@ -133,6 +321,7 @@ public class Document {
             return;
         }
 
+        beforeWrite();
         if (line <= getLineCount()) {
             // 在现有行插入，newLines是在指定行列插入后新的行
             String currentLine = lines.get(line - 1);
@@ -152,6 +341,7 @@ public class Document {
             lines.addAll(Arrays.asList(newLines));
         }
         this.modified = true;
+        this.version++;
     }
 
     /**
@@ -161,6 +351,7 @@ public class Document {
      *  - 行号或列号越界：提示相应的范围错误
      */
     public void delete(int line, int col, int len) {
+        ensureLoaded();
         // 检查行号
         if (line < 1 || line > getLineCount()) {
             throw new IllegalArgumentException("行号越界，范围应为1到" + getLineCount());
@@ -187,16 +378,19 @@ public class Document {
         }
 
         // 执行删除
+        beforeWrite();
         String part1 = currentLine.substring(0, col - 1);
         String part2 = currentLine.substring(col - 1 + len);
         lines.set(line - 1, part1 + part2);
         this.modified = true;
+        this.version++;
     }
 
     /**
      * 替换文本
      */
     public void replace(int line, int col, int len, String text) {
+        ensureLoaded();
         // 检查行号
         if (line < 1 || line > getLineCount()) {
             throw new IllegalArgumentException("行号越界，范围应为1到" + getLineCount());
@@ -231,17 +425,20 @@ public class Document {
         String[] newLines = combined.split("\n", -1);
 
         // 替换原行
+        beforeWrite();
         lines.remove(line - 1);
         for (int i = 0; i < newLines.length; i++) {
             lines.add(line - 1 + i, newLines[i]);
         }
         this.modified = true;
+        this.version++;
     }
 
     /**
      * 获取指定位置的文本
      */
     public String getText(int line, int col, int len) {
+        ensureLoaded();
         // 检查行号
         if (line < 1 || line > getLineCount()) {
             throw new IllegalArgumentException("行号越界");
@@ -272,24 +469,42 @@ public class Document {
      * 删除指定行
      */
     public void deleteLine(int line) {
+        ensureLoaded();
         if (line < 1 || line > getLineCount()) {
             throw new IllegalArgumentException("行号越界");
         }
+        beforeWrite();
         lines.remove(line - 1);
         this.modified = true;
+        this.version++;
     }
 
     /**
      * 显示全部内容
      */
     public String getContent() {
+        ensureLoaded();
         return String.join("\n", lines);
     }
 
+    /**
+     * 逐行写出全部内容（结果与 getContent 相同，但不拼接成一个大字符串）
+     */
+    public void writeTo(Writer writer) throws IOException {
+        ensureLoaded();
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                writer.write('\n');
+            }
+            writer.write(lines.get(i));
+        }
+    }
+
     /**
      * 获取总行数
      */
     public int getLineCount() {
+        ensureLoaded();
         return lines.size();
     }
 
@@ -299,6 +514,7 @@ public class Document {
      *  - 行号或越界：提示"行号越界"
      */
     public String getLine(int i) throws Exception{
+        ensureLoaded();
         if(i < 1 || i > getLineCount()) {
             throw new Exception("行号越界");
         }
@@ -1,5 +1,9 @@
 package org.ztglab.workspace;
 
+import java.util.List;
+
+import org.ztglab.spellcheck.SpellIssue;
+
 /**
  * 编辑器接口 - 定义所有编辑器的通用行为 (无状态服务)
  * 
@@ -12,6 +16,14 @@ public interface IEditor {
     String show(Document doc, int start, int end);
     String show(Document doc);
     
+    /**
+     * 对文档内容执行拼写检查（不输出，仅返回结果）
+     * 可能在后台线程调用，因此只接收内容快照而不是 Document
+     * @param content 文档内容快照
+     * @return 拼写问题列表
+     */
+    List<SpellIssue> spellCheck(String content) throws Exception;
+
     // === 元操作 (委托给 History) ===
     boolean undo(Document doc);
     boolean redo(Document doc);
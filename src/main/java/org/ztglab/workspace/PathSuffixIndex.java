@@ -0,0 +1,151 @@
+package org.ztglab.workspace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 路径后缀索引 - 按字符倒序存放路径的字典树
+ *
+ * 从路径末尾向前逐字符插入，每个节点记录经过它的路径个数。查找以 suffix 结尾的路径时
+ * 从根沿 suffix 倒序走到对应节点，节点计数即匹配个数，再向下取出前几个完整路径；
+ * 代价只与 suffix 和匹配路径的长度有关，与打开的文档数无关。
+ * 匹配规则与 String.endsWith 完全一致（如 "b.txt" 也匹配 "/x/ab.txt"）。
+ *
+ * 非线程安全，由 Workspace 在命令线程上维护。
+ */
+final class PathSuffixIndex {
+
+    private static final class Node {
+        // 子节点按字符线性查找；路径字符的分支通常很少，用数组比 Map 省内存
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int size;
+        // 经过该节点（含在此结束）的路径个数
+        private int count;
+        // 在此结束的完整路径（倒序走完整个路径后到达的节点）
+        private String path;
+
+        Node child(char c) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            if (size == keys.length) {
+                int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            Node node = new Node();
+            keys[size] = c;
+            children[size] = node;
+            size++;
+            return node;
+        }
+
+        void removeChild(char c) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == c) {
+                    size--;
+                    keys[i] = keys[size];
+                    children[i] = children[size];
+                    children[size] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * 加入路径（路径已存在时不做任何事）
+     */
+    void add(String path) {
+        if (contains(path)) {
+            return;
+        }
+        Node node = root;
+        node.count++;
+        for (int i = path.length() - 1; i >= 0; i--) {
+            char c = path.charAt(i);
+            Node next = node.child(c);
+            if (next == null) {
+                next = node.addChild(c);
+            }
+            next.count++;
+            node = next;
+        }
+        node.path = path;
+    }
+
+    /**
+     * 移除路径（路径不存在时不做任何事），计数归零的分支一并删除
+     */
+    void remove(String path) {
+        if (!contains(path)) {
+            return;
+        }
+        Node node = root;
+        node.count--;
+        for (int i = path.length() - 1; i >= 0; i--) {
+            char c = path.charAt(i);
+            Node next = node.child(c);
+            if (--next.count == 0) {
+                node.removeChild(c);
+                return;
+            }
+            node = next;
+        }
+        node.path = null;
+    }
+
+    boolean contains(String path) {
+        Node node = find(path);
+        return node != null && path.equals(node.path);
+    }
+
+    /**
+     * 以 suffix 结尾的路径个数
+     */
+    int count(String suffix) {
+        Node node = find(suffix);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * 以 suffix 结尾的路径，最多返回 limit 个（顺序不固定）
+     * 判断唯一匹配时传 2 即可，不必取出全部匹配
+     */
+    List<String> match(String suffix, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 4));
+        Node node = find(suffix);
+        if (node != null) {
+            collect(node, limit, result);
+        }
+        return result;
+    }
+
+    private Node find(String suffix) {
+        Node node = root;
+        for (int i = suffix.length() - 1; i >= 0 && node != null; i--) {
+            node = node.child(suffix.charAt(i));
+        }
+        return node;
+    }
+
+    // 计数为零的分支已被删除，每个分支下都至少有一个完整路径，收集量受 limit 限制
+    private static void collect(Node node, int limit, List<String> result) {
+        if (node.path != null && result.size() < limit) {
+            result.add(node.path);
+        }
+        for (int i = 0; i < node.size && result.size() < limit; i++) {
+            collect(node.children[i], limit, result);
+        }
+    }
+}
@@ -3,22 +3,37 @@ package org.ztglab.workspace;
 import org.ztglab.workspace.editor.EditOperation;
 import org.ztglab.workspace.editor.operations.*;
 import org.ztglab.command.CommandBus;
+import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.infrastructure.SpellCheckService;
 import org.ztglab.spellcheck.ISpellChecker;
 import org.ztglab.spellcheck.LanguageToolAdapter;
+import org.ztglab.spellcheck.SpellCheckReport;
+import org.ztglab.spellcheck.SpellIssue;
+import org.ztglab.spellcheck.UserDictionary;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * 文本编辑器服务 - 无状态
  */
 public class TextEditor implements IEditor {
 
     private final Map<String, EditorCommand> commandMap = new HashMap<>();
-    private final ISpellChecker checker = new LanguageToolAdapter();
+    private final ISpellChecker checker;
 
     public TextEditor() {
+        this(null);
+    }
+
+    /**
+     * @param dictionary 工作区用户词典（可为 null）
+     */
+    public TextEditor(UserDictionary dictionary) {
+        this.checker = new LanguageToolAdapter(dictionary);
         initCommands();
     }
 
@@ -122,19 +137,20 @@ public class TextEditor implements IEditor {
     }
 
     private void handleSpellCheck(Document doc, String args) throws Exception {
-        String text = doc.getContent();
-        List<String> issues = checker.check(text);
+        SpellCheckService service = ApplicationContext.getInstance().getSpellCheckService();
+        SpellCheckReport report = service.getReport(doc, this);
 
-        System.out.println("拼写检查结果:");
-        if (issues.isEmpty()) {
-            System.out.println("无拼写错误");
-        } else {
-            for (String s : issues) {
-                System.out.println(s);
-            }
+        output().println(report.render());
+        if (report.getVersion() != doc.getVersion()) {
+            output().println("(以上为较早版本的检查结果，最新内容正在后台检查)");
         }
     }
 
+    @Override
+    public List<SpellIssue> spellCheck(String content) throws Exception {
+        return checker.check(content);
+    }
+
     /**
      * 辅助方法：提取双引号内的文本
      */
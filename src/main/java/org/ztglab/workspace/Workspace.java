@@ -3,11 +3,15 @@ package org.ztglab.workspace;
 import org.ztglab.infrastructure.ApplicationContext;
 import org.ztglab.event.EventBus;
 import org.ztglab.event.events.*;
+import org.ztglab.spellcheck.UserDictionary;
 
 import java.io.File;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * Workspace - 工作区实体 (聚合根)
  * 职责：
@@ -22,6 +26,8 @@ public class Workspace {
     
     // 文件路径-文档实例的映射
     private Map<String, Document> documents = new LinkedHashMap<>();
+    // 路径后缀索引，按文件名或部分路径查找文档时使用；与 documents 一起通过 putDocument/removeDocument 维护
+    private final PathSuffixIndex pathIndex = new PathSuffixIndex();
     // 当前活动文档
     private Document activeDocument;
 
@@ -32,18 +38,24 @@ public class Workspace {
     // 默认编辑器 (TextEditor)
     private IEditor defaultEditor;
 
+    // 工作区用户词典（拼写检查时视为合法的词汇）
+    private final UserDictionary userDictionary;
+
     /**
      * 初始化工作区
      * 注册默认支持的编辑器类型
      */
     public Workspace() {
+        // 加载工作区用户词典
+        this.userDictionary = new UserDictionary(Paths.get(UserDictionary.DEFAULT_FILE));
+
         // 初始化默认编辑器
-        this.defaultEditor = new TextEditor();
+        this.defaultEditor = new TextEditor(userDictionary);
         // 注册编辑器
         registerEditor("txt", defaultEditor);
 
         // 注册 XML 编辑器
-        XmlEditor xmlEditor = new XmlEditor();
+        XmlEditor xmlEditor = new XmlEditor(userDictionary);
         registerEditor("xml", xmlEditor);
     }
 
@@ -59,6 +71,13 @@ public class Workspace {
         editorRegistry.put(extension.toLowerCase(), editor);
     }
 
+    /**
+     * 获取工作区用户词典
+     */
+    public UserDictionary getUserDictionary() {
+        return userDictionary;
+    }
+
     /**
      * 获取所有已注册的编辑器
      */
@@ -68,8 +87,11 @@ public class Workspace {
 
     // ==================== 文档查询 ====================
 
+    /**
+     * 所有打开的文档（只读视图，按打开顺序）
+     */
     public Map<String, Document> getDocuments() {
-        return documents;
+        return Collections.unmodifiableMap(documents);
     }
 
     public Document getActiveDocument() {
@@ -83,16 +105,22 @@ public class Workspace {
      * @throws Exception 如果未找到或找到多个匹配项
      */
     public Document getDocument(String file) throws Exception {
-        List<String> matched = documents.keySet().stream()
-                .filter(p -> p.endsWith(file))
-                .collect(Collectors.toList());
+        return documents.get(resolvePath(file));
+    }
+
+    /**
+     * 在后缀索引中查找以 file 结尾的唯一路径
+     * 只取前两个匹配判断是否唯一，查找代价与打开的文档数无关
+     */
+    private String resolvePath(String file) throws Exception {
+        List<String> matched = pathIndex.match(file, 2);
 
         if (matched.isEmpty())
             throw new Exception("文件未打开: " + file);
         if (matched.size() > 1)
             throw new Exception("存在多个同名文件，请输入完整路径");
 
-        return documents.get(matched.get(0));
+        return matched.get(0);
     }
 
     /**
@@ -168,7 +196,7 @@ public class Workspace {
             }
         } catch (Exception e) {
             // 事件发布失败不应影响主流程，仅打印警告
-            System.err.println("[Workspace] 发布活动文档切换事件失败: " + e.getMessage());
+            output().error("[Workspace] 发布活动文档切换事件失败: " + e.getMessage());
         }
     }
 
@@ -182,14 +210,41 @@ public class Workspace {
      */
     public void openDocument(String absPath, String content) throws Exception {
         if (documents.containsKey(absPath)) {
-            System.out.println("文件已经加载: " + absPath);
+            output().println("文件已经加载: " + absPath);
             setActiveDocument(documents.get(absPath));
             return;
         }
+        openDocument(createDocument(absPath, content));
+    }
 
+    /**
+     * 由文件内容构建文档对象，不加入工作区
+     * 不访问工作区状态，可在多个线程上并行调用，之后再用 openDocument(Document) 依次加入。
+     *
+     * @param absPath 文件绝对路径
+     * @param content 文件内容 (可为null，表示空文件)
+     */
+    public static Document createDocument(String absPath, String content) {
         Document doc = (content == null) ? new Document() : new Document(content);
         doc.setFilePath(absPath);
-        documents.put(absPath, doc);
+        return doc;
+    }
+
+    /**
+     * 打开已构建好的文档 (纯内存操作)
+     * 路径已打开时切换到已有文档；否则加入管理并设为活动文档。
+     * 触发 DocumentOpenedEvent 事件。
+     *
+     * @param doc 由 createDocument 构建的文档
+     */
+    public void openDocument(Document doc) {
+        String absPath = doc.getFilePath();
+        if (documents.containsKey(absPath)) {
+            output().println("文件已经加载: " + absPath);
+            setActiveDocument(documents.get(absPath));
+            return;
+        }
+        putDocument(absPath, doc);
 
         // 发布文档打开事件
         try {
@@ -198,12 +253,12 @@ public class Workspace {
                 eventBus.publish(new DocumentOpenedEvent(doc));
             }
         } catch (Exception e) {
-            System.err.println("[Workspace] 发布文档打开事件失败: " + e.getMessage());
+            output().error("[Workspace] 发布文档打开事件失败: " + e.getMessage());
         }
 
         setActiveDocument(doc);
 
-        System.out.println("文件已加载: " + absPath);
+        output().println("文件已加载: " + absPath);
     }
 
     /**
@@ -217,7 +272,7 @@ public class Workspace {
             throw new Exception("文件未在工作区中打开: " + path);
         Document doc = documents.get(path);
         doc.setModified(false);
-        System.out.println("已保存: " + path);
+        output().println("已保存: " + path);
     }
 
     /**
@@ -234,8 +289,8 @@ public class Workspace {
         Document doc = documents.get(oldPath);
 
         // 更新documents map
-        documents.remove(oldPath);
-        documents.put(newPath, doc);
+        removeDocument(oldPath);
+        putDocument(newPath, doc);
 
         // 更新document属性
         doc.setFilePath(newPath);
@@ -248,10 +303,10 @@ public class Workspace {
                 eventBus.publish(new DocumentPathUpdatedEvent(oldPath, newPath));
             }
         } catch (Exception e) {
-            System.err.println("发布路径更新事件失败: " + e.getMessage());
+            output().error("发布路径更新事件失败: " + e.getMessage());
         }
 
-        System.out.println("已保存: " + newPath);
+        output().println("已保存: " + newPath);
     }
 
     /**
@@ -286,10 +341,80 @@ public class Workspace {
             editor.initDocument(doc);
         }
 
-        documents.put(targetPath, doc);
+        putDocument(targetPath, doc);
+        setActiveDocument(doc);
+
+        output().println("新文件创建成功: " + targetPath);
+    }
+
+    /**
+     * 登记延迟加载的文档（工作区恢复时使用）
+     * 只记录路径和修改状态，不读取内容，也不发布 DocumentOpenedEvent、不切换活动文档；
+     * 内容在第一次访问（edit、show 或编辑命令）时由 loader 读取。
+     *
+     * @param path 文件路径
+     * @param loader 内容加载器
+     * @param modified 是否有未保存的修改
+     * @return 登记的文档；路径已打开时返回已有文档
+     */
+    public Document openPlaceholder(String path, Document.ContentLoader loader, boolean modified) {
+        Document existing = documents.get(path);
+        if (existing != null) {
+            return existing;
+        }
+        Document doc = Document.placeholder(loader);
+        doc.setFilePath(path);
+        doc.setModified(modified);
+        putDocument(path, doc);
+        return doc;
+    }
+
+    /**
+     * 以自动保存的内容恢复文档
+     * 文档已打开时用恢复的内容替换（原文档连同撤销历史一起关闭），否则作为新文档打开。
+     * 恢复的文档标记为已修改，由用户决定是否保存。
+     *
+     * @param path 文件路径（可为未命名缓冲区，如 <unsaved-text-...>）
+     * @param content 恢复的内容
+     */
+    public void recoverDocument(String path, String content) {
+        Document doc = new Document(content);
+        doc.setFilePath(path);
+        doc.setModified(true);
+
+        EventBus eventBus = ApplicationContext.getInstance().getEventBus();
+        try {
+            if (putDocument(path, doc) != null && eventBus != null) {
+                eventBus.publish(new DocumentClosedEvent(path));
+            }
+            if (eventBus != null) {
+                eventBus.publish(new DocumentOpenedEvent(doc));
+            }
+        } catch (Exception e) {
+            output().error("[Workspace] 发布文档恢复事件失败: " + e.getMessage());
+        }
+
         setActiveDocument(doc);
+        output().println("已恢复: " + path);
+    }
+
+    /**
+     * 加入或替换文档，同时更新后缀索引
+     *
+     * @return 被替换的文档；路径原先未打开时为 null
+     */
+    private Document putDocument(String path, Document doc) {
+        Document previous = documents.put(path, doc);
+        if (previous == null) {
+            pathIndex.add(path);
+        }
+        return previous;
+    }
 
-        System.out.println("新文件创建成功: " + targetPath);
+    private void removeDocument(String path) {
+        if (documents.remove(path) != null) {
+            pathIndex.remove(path);
+        }
     }
 
     /**
@@ -312,7 +437,7 @@ public class Workspace {
         Document doc = getDocument(file);
         String abs = doc.getFilePath();
 
-        documents.remove(abs);
+        removeDocument(abs);
 
         // 发布文档关闭事件
         try {
@@ -321,18 +446,18 @@ public class Workspace {
                 eventBus.publish(new DocumentClosedEvent(abs));
             }
         } catch (Exception e) {
-            System.err.println("[Workspace] 发布文档关闭事件失败: " + e.getMessage());
+            output().error("[Workspace] 发布文档关闭事件失败: " + e.getMessage());
         }
 
         if (!documents.isEmpty()) {
             String last = documents.keySet().stream().reduce((a, b) -> b).get();
             setActiveDocument(documents.get(last));
-            System.out.println("切换到文件: " + last);
+            output().println("切换到文件: " + last);
         } else {
             setActiveDocument(null);
-            System.out.println("没有打开的文件了");
+            output().println("没有打开的文件了");
         }
-        System.out.println("已关闭: " + abs);
+        output().println("已关闭: " + abs);
     }
 
     /**
@@ -341,18 +466,9 @@ public class Workspace {
      * @param file 文件名或路径
      */
     public void edit(String file) throws Exception {
-        List<String> matched = documents.keySet().stream()
-                .filter(p -> p.endsWith(file))
-                .collect(Collectors.toList());
-
-        if (matched.isEmpty())
-            throw new Exception("文件未打开: " + file);
-        if (matched.size() > 1)
-            throw new Exception("存在多个同名文件，请输入完整路径");
-
-        String abs = matched.get(0);
+        String abs = resolvePath(file);
         setActiveDocument(documents.get(abs));
-        System.out.println("切换到文件: " + abs);
+        output().println("切换到文件: " + abs);
     }
 
     // ==================== 系统操作 ====================
@@ -369,9 +485,9 @@ public class Workspace {
                 eventBus.publish(new WorkspaceClosingEvent());
             }
         } catch (Exception e) {
-            System.err.println("[Workspace] 发布工作区关闭事件失败: " + e.getMessage());
+            output().error("[Workspace] 发布工作区关闭事件失败: " + e.getMessage());
         }
 
-        System.out.println("已退出编辑器");
+        output().println("已退出编辑器");
     }
 }
@@ -2,8 +2,13 @@ package org.ztglab.workspace;
 
 import org.ztglab.workspace.editor.operations.XmlOperation;
 import org.ztglab.command.CommandBus;
+import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.infrastructure.SpellCheckService;
 import org.ztglab.spellcheck.ISpellChecker;
 import org.ztglab.spellcheck.LanguageToolAdapter;
+import org.ztglab.spellcheck.SpellCheckReport;
+import org.ztglab.spellcheck.SpellIssue;
+import org.ztglab.spellcheck.UserDictionary;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.*;
@@ -13,6 +18,8 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static org.ztglab.infrastructure.ApplicationContext.output;
+
 /**
  * XML编辑器 - 基于树形结构的XML文件编辑器
  * 
@@ -24,9 +31,17 @@ import java.util.regex.Pattern;
 public class XmlEditor implements IEditor {
 
     private final Map<String, EditorCommand> commandMap = new HashMap<>();
-    private final ISpellChecker checker = new LanguageToolAdapter();
+    private final ISpellChecker checker;
 
     public XmlEditor() {
+        this(null);
+    }
+
+    /**
+     * @param dictionary 工作区用户词典（可为 null）
+     */
+    public XmlEditor(UserDictionary dictionary) {
+        this.checker = new LanguageToolAdapter(dictionary);
         initCommands();
     }
 
@@ -148,7 +163,7 @@ public class XmlEditor implements IEditor {
     private void handleXmlTree(Document doc, String args) throws Exception {
         // xml-tree 命令显示XML树形结构
         String treeStr = showXmlTree(doc);
-        System.out.println(treeStr);
+        output().println(treeStr);
     }
     // ==================== XML 操作方法 ====================
 
@@ -756,43 +771,66 @@ public class XmlEditor implements IEditor {
     }
     
     private void handleSpellCheck(Document doc, String args) throws Exception {
-        String xmlText = doc.getContent();
+        SpellCheckService service = ApplicationContext.getInstance().getSpellCheckService();
+        SpellCheckReport report = service.getReport(doc, this);
+
+        output().println(report.render());
+        if (report.getVersion() != doc.getVersion()) {
+            output().println("(以上为较早版本的检查结果，最新内容正在后台检查)");
+        }
+    }
 
+    @Override
+    public List<SpellIssue> spellCheck(String xmlText) throws Exception {
         // 解析 DOM
         javax.xml.parsers.DocumentBuilder builder =
                 DocumentBuilderFactory.newInstance().newDocumentBuilder();
         org.w3c.dom.Document dom =
                 builder.parse(new ByteArrayInputStream(xmlText.getBytes(StandardCharsets.UTF_8)));
 
-        List<String> results = new ArrayList<>();
+        // 文档自身的标签名和元素ID视为合法词汇
+        Set<String> documentTerms = new HashSet<>();
+        collectTerms(dom.getDocumentElement(), documentTerms);
+
+        List<SpellIssue> results = new ArrayList<>();
 
         // 遍历所有文本节点
-        traverse(dom.getDocumentElement(), results);
+        traverse(dom.getDocumentElement(), documentTerms, results);
+        return results;
+    }
 
-        System.out.println("拼写检查结果:");
-        if (results.isEmpty()) {
-            System.out.println("无拼写错误");
-        } else {
-            for (String s : results) {
-                System.out.println(s);
+    private void collectTerms(Element element, Set<String> terms) {
+        terms.add(element.getTagName().toLowerCase(Locale.ROOT));
+        String id = element.getAttribute("id");
+        if (!id.isEmpty()) {
+            terms.add(id.toLowerCase(Locale.ROOT));
+        }
+        Node child = element.getFirstChild();
+        while (child != null) {
+            if (child instanceof Element childElement) {
+                collectTerms(childElement, terms);
             }
+            child = child.getNextSibling();
         }
     }
 
-    private void traverse(Node node, List<String> results) throws Exception {
+    private void traverse(Node node, Set<String> documentTerms, List<SpellIssue> results) throws Exception {
         if (node.getNodeType() == Node.TEXT_NODE) {
             String content = node.getNodeValue().trim();
             if (!content.isEmpty()) {
 
                 // 用 LanguageTool 检查
-                List<String> issues = checker.check(content);
+                List<SpellIssue> issues = checker.check(content);
 
                 // 找到父元素名，用于输出格式
                 Node parent = node.getParentNode();
                 String tagName = parent != null ? parent.getNodeName() : "unknown";
 
-                for (String issue : issues) {
-                    results.add(String.format("元素 %s: %s", tagName, issue));
+                for (SpellIssue issue : issues) {
+                    if (documentTerms.contains(issue.getWord().toLowerCase(Locale.ROOT))) {
+                        continue;
+                    }
+                    results.add(issue.withElement(tagName));
                 }
             }
         }
@@ -800,7 +838,7 @@ public class XmlEditor implements IEditor {
         // 递归子节点
         Node child = node.getFirstChild();
         while (child != null) {
-            traverse(child, results);
+            traverse(child, documentTerms, results);
             child = child.getNextSibling();
         }
     }
@@ -0,0 +1,89 @@
+package org.ztglab.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ztglab.event.Event;
+import org.ztglab.event.EventBus;
+import org.ztglab.event.events.CommandCompletedEvent;
+import org.ztglab.event.events.DocumentClosedEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventBus 同步发布的基准测试
+ *
+ * 运行方式：mvn test-compile 后执行本类的 main 方法
+ * （或在 IDE 中直接运行），加 -prof gc 参数可观察每次发布的分配量
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBusBenchmark {
+
+    private EventBus exactBus;
+    private EventBus hierarchyBus;
+    private EventBus emptyBus;
+    private Event completed;
+    private Event closed;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        completed = new CommandCompletedEvent(null);
+        closed = new DocumentClosedEvent("bench.txt");
+
+        // 只有精确类型订阅：与旧实现的查找方式相同
+        exactBus = new EventBus();
+        for (int i = 0; i < 4; i++) {
+            exactBus.subscribe(CommandCompletedEvent.class, blackhole::consume);
+        }
+
+        // 精确类型 + 父类订阅：需要合并多层订阅
+        hierarchyBus = new EventBus();
+        for (int i = 0; i < 2; i++) {
+            hierarchyBus.subscribe(CommandCompletedEvent.class, blackhole::consume);
+            hierarchyBus.subscribe(Event.class, blackhole::consume);
+        }
+
+        // 没有任何监听器
+        emptyBus = new EventBus();
+    }
+
+    @Benchmark
+    public void publishExactType() {
+        exactBus.publish(completed);
+    }
+
+    @Benchmark
+    public void publishWithSuperclassListeners() {
+        hierarchyBus.publish(completed);
+    }
+
+    @Benchmark
+    public void publishUnmatchedType() {
+        hierarchyBus.publish(closed);
+    }
+
+    @Benchmark
+    public void publishWithoutListeners() {
+        emptyBus.publish(completed);
+    }
+
+    @TearDown
+    public void tearDown() {
+        exactBus.shutdown(1, TimeUnit.SECONDS);
+        hierarchyBus.shutdown(1, TimeUnit.SECONDS);
+        emptyBus.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventBusBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package org.ztglab.e2e;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.ui.BatchRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批处理模式端到端测试：脚本执行、失败策略与执行摘要
+ */
+class BatchRunnerE2ETest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeScript(Path target) throws Exception {
+        String path = target.toString().replace("\\", "/");
+        Path script = tempDir.resolve("script.txt");
+        Files.writeString(script, String.join("\n",
+                "# 批处理脚本",
+                "init " + path,
+                "append \"hello\"",
+                "",
+                "unknown-command",
+                "append \"world\"",
+                "save"), StandardCharsets.UTF_8);
+        return script;
+    }
+
+    @Test
+    @DisplayName("continue 策略 - 出错后继续执行并统计失败条数")
+    void testContinueOnError() throws Exception {
+        Path target = tempDir.resolve("batch.txt");
+        BatchRunner.Result result = new BatchRunner(writeScript(target), true, false).run();
+
+        assertEquals(5, result.executed());
+        assertEquals(1, result.failed());
+        assertFalse(result.aborted());
+        assertEquals("hello\nworld", Files.readString(target).replace("\r\n", "\n").trim());
+        assertTrue(result.summary().contains("执行 5 条命令"));
+    }
+
+    @Test
+    @DisplayName("fail-fast 策略 - 第一次出错即停止")
+    void testFailFast() throws Exception {
+        Path target = tempDir.resolve("batch.txt");
+        BatchRunner.Result result = new BatchRunner(writeScript(target), true, true).run();
+
+        assertEquals(3, result.executed());
+        assertEquals(1, result.failed());
+        assertTrue(result.aborted());
+        assertFalse(Files.exists(target));
+    }
+}
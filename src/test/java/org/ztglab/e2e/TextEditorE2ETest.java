@@ -21,18 +21,34 @@ package org.ztglab.e2e;
  * 
  * 6. 自动加载日志 (testLoadExistingFileWithLogHeader):
  *    load (带 # log 头的文件) -> 验证日志自动启用
+ *    load (带 # log -e 头的文件) -> show -> append -> 修改文件头 -> append -> log-show
+ * 
+ * 6b. 二进制日志回放 (testBinaryLogReplay):
+ *    init (file1) with-log -> append -> log-show -> init (file2) -> log-replay file1
+ * 
+ * 6c. 全部保存 (testSaveAllSkipsCleanAndReportsFailures):
+ *    init x4 -> append -> save all (一个文件写入失败)
+ * 
+ * 6d. 批量加载 (testLoadMultipleFilesAndGlobs / testLoadNewFileWithSpacesOrGlobCharacters):
+ *    load <glob> <file> (并行读取，按参数顺序加入工作区)
  * 
  * 7. 多文件切换 (testMultipleFilesSwitching):
  *    init (file1) -> init (file2) -> edit (file1) -> editor-list
  * 
  * 8. 显示命令 (testShowCommand):
  *    init -> insert -> append -> show -> show start:end
+ * 
+ * 9. 工作区持久化 (testWorkspacePersistence / testUnsavedEditsSurviveRestart):
+ *    init -> append -> exit (保存 / 不保存) -> 重新启动
  */
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.infrastructure.ApplicationContext;
+import org.ztglab.infrastructure.LoggingService;
+import org.ztglab.infrastructure.OutputSink;
 import org.ztglab.ui.CommandExecutor;
 import org.ztglab.workspace.Workspace;
 import org.ztglab.workspace.Document;
@@ -43,6 +59,8 @@ import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -230,6 +248,184 @@ class TextEditorE2ETest {
         assertEquals("# log", doc.getLine(1).trim());
     }
 
+    @Test
+    void testLogHeaderExclusionFollowsEdits() throws Exception {
+        String filename = "test_exclude_" + System.currentTimeMillis() + ".txt";
+        Path filePath = tempDir.resolve(filename);
+        String absPath = filePath.toAbsolutePath().toString();
+        Files.writeString(filePath, "# log -e show\nHello");
+
+        execute("load " + absPath);
+        execute("show");
+        execute("append \"first\"");
+        // 修改文件头后，新的排除项立即生效
+        execute("insert 1:14 \" -e append\"");
+        execute("append \"second\"");
+
+        execute("log-show");
+        String output = getOutput();
+        assertTrue(output.contains("append \"first\""), "append should be logged before header edit");
+        assertFalse(output.contains("append \"second\""), "append should be excluded after header edit");
+        assertFalse(output.lines().anyMatch(line -> line.matches("\\d{8} \\d{2}:\\d{2}:\\d{2} show")),
+                "show should be excluded");
+    }
+
+    @Test
+    void testBinaryLogReplay() throws Exception {
+        LoggingService loggingService = ApplicationContext.getInstance().getLoggingService();
+        LoggingService.LogFormat originalFormat = loggingService.getFormat();
+        loggingService.setFormat(LoggingService.LogFormat.BINARY);
+        try {
+            String source = tempDir.resolve("replay_src_" + System.currentTimeMillis() + ".txt").toAbsolutePath().toString();
+            String target = tempDir.resolve("replay_dst_" + System.currentTimeMillis() + ".txt").toAbsolutePath().toString();
+
+            execute("init " + source + " with-log");
+            execute("append \"第一行\"");
+            execute("append \"second line\"");
+            execute("log-show");
+            assertTrue(getOutput().contains("append \"second line\""), "log-show should render binary log");
+
+            String recorded = executor.getWorkspace().getActiveDocument().getContent();
+
+            // 切换到另一个文件后回放：日志从 init 开始，会重新创建源文件并重放全部编辑
+            execute("init " + target);
+            execute("log-replay " + source + " --quiet");
+            assertTrue(getOutput().contains("回放完成"), "Should print replay summary");
+
+            Document doc = executor.getWorkspace().getActiveDocument();
+            assertEquals(source, doc.getFilePath());
+            assertEquals(recorded, doc.getContent());
+            assertTrue(recorded.contains("第一行\nsecond line"), recorded);
+        } finally {
+            loggingService.setFormat(originalFormat);
+        }
+    }
+
+    @Test
+    void testQuietReplayKeepsErrorsInInstalledSink() throws Exception {
+        Path log = tempDir.resolve("quiet_replay.log");
+        Files.writeString(log, String.join(System.lineSeparator(),
+                "session start at 20250101 00:00:00",
+                "20250101 00:00:01 init " + tempDir.resolve("quiet.txt").toAbsolutePath(),
+                "20250101 00:00:02 no-such-command",
+                ""));
+
+        List<String> infos = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        ApplicationContext context = ApplicationContext.getInstance();
+        OutputSink original = context.getOutput();
+        context.setOutput(new OutputSink() {
+            @Override
+            public void print(String text) {
+                infos.add(text);
+            }
+
+            @Override
+            public void println(String line) {
+                infos.add(line);
+            }
+
+            @Override
+            public void error(String line) {
+                errors.add(line);
+            }
+
+            @Override
+            public void flush() {
+            }
+        });
+        try {
+            executor.execute("log-replay " + log.toAbsolutePath() + " --quiet");
+        } finally {
+            context.setOutput(original);
+        }
+
+        // 回放期间的普通信息被丢弃，错误仍然写到已安装的输出，而不是直接写 System.err
+        assertTrue(errors.stream().anyMatch(line -> line.contains("回放失败 [no-such-command]")), errors.toString());
+        assertEquals(1, infos.size(), infos.toString());
+        assertTrue(infos.get(0).contains("回放完成"));
+    }
+
+    @Test
+    void testSaveAllSkipsCleanAndReportsFailures() throws Exception {
+        Path blocker = Files.writeString(tempDir.resolve("blocker"), "not a directory");
+        String dirty1 = tempDir.resolve("all1.txt").toAbsolutePath().toString();
+        String clean = tempDir.resolve("all2.txt").toAbsolutePath().toString();
+        String dirty2 = tempDir.resolve("all3.txt").toAbsolutePath().toString();
+        String broken = blocker.resolve("all4.txt").toAbsolutePath().toString();
+
+        execute("init " + dirty1);
+        execute("append \"one\"");
+        execute("init " + clean);
+        execute("save");
+        // 已保存的文档没有修改，save all 不应覆盖磁盘上的内容
+        Files.writeString(Path.of(clean), "external");
+        execute("init " + dirty2);
+        execute("append \"three\"");
+        execute("init " + broken);
+        execute("append \"four\"");
+
+        outContent.reset();
+        Exception e = assertThrows(Exception.class, () -> executor.execute("save all"));
+        assertTrue(e.getMessage().contains(broken), e.getMessage());
+
+        assertTrue(Files.readString(Path.of(dirty1)).contains("one"));
+        assertTrue(Files.readString(Path.of(dirty2)).contains("three"));
+        assertEquals("external", Files.readString(Path.of(clean)), "clean document should not be written");
+        assertTrue(getOutput().contains("已保存: " + dirty1));
+        assertFalse(getOutput().contains("已保存: " + broken));
+    }
+
+    @Test
+    void testLoadMultipleFilesAndGlobs() throws Exception {
+        Path project = tempDir.resolve("proj");
+        Files.createDirectories(project.resolve("sub"));
+        Path a = Files.writeString(project.resolve("a.txt"), "alpha");
+        Path b = Files.writeString(project.resolve("sub/b.txt"), "beta\nline");
+        Files.writeString(project.resolve("sub/c.xml"), "<root/>");
+        Path d = Files.writeString(project.resolve("d.md"), "delta");
+
+        execute("load " + project.toAbsolutePath() + "/**/*.txt \"" + d.toAbsolutePath() + "\"");
+
+        Workspace wm = executor.getWorkspace();
+        assertEquals(List.of(a.toString(), b.toString(), d.toString()), List.copyOf(wm.getDocuments().keySet()));
+        assertEquals("beta\nline", wm.getDocuments().get(b.toString()).getContent());
+        assertEquals(d.toString(), wm.getActiveDocument().getFilePath());
+        assertTrue(getOutput().contains("共加载 3 个文件"));
+
+        // 个别参数失败时其余文件照常加载，失败项汇总报告
+        Path e1 = Files.writeString(project.resolve("e.md"), "echo");
+        Exception e = assertThrows(Exception.class, () -> executor.execute(
+                "load \"" + project.resolve("sub").toAbsolutePath() + "\" " + project.toAbsolutePath() + "/*.none \"" + e1.toAbsolutePath() + "\""));
+        assertTrue(e.getMessage().contains(project.resolve("sub").toAbsolutePath().toString()));
+        assertTrue(e.getMessage().contains("没有匹配的文件"));
+        assertTrue(getOutput().contains("文件已加载: " + e1.toAbsolutePath()));
+    }
+
+    @Test
+    void testLoadNewFileWithSpacesOrGlobCharacters() throws Exception {
+        Path existing = Files.writeString(tempDir.resolve("a.txt"), "alpha");
+        Path other = Files.writeString(tempDir.resolve("b.txt"), "beta");
+        Workspace wm = executor.getWorkspace();
+
+        // 不存在的带空格路径仍然是一个新文件
+        String spaced = tempDir.resolve("my notes.txt").toAbsolutePath().toString();
+        execute("load " + spaced);
+        assertEquals(spaced, wm.getActiveDocument().getFilePath());
+        assertFalse(wm.getDocuments().containsKey(tempDir.resolve("my").toAbsolutePath().toString()));
+
+        // 只有一个参数的通配符没有匹配时按普通路径新建
+        String bracketed = tempDir.resolve("notes[1].txt").toAbsolutePath().toString();
+        execute("load " + bracketed);
+        assertEquals(bracketed, wm.getActiveDocument().getFilePath());
+        assertTrue(getOutput().contains("新文件已创建并加载: " + bracketed));
+
+        // 不带引号的多个已存在文件仍然分别加载
+        execute("load " + existing.toAbsolutePath() + " " + other.toAbsolutePath());
+        assertEquals("alpha", wm.getDocuments().get(existing.toAbsolutePath().toString()).getContent());
+        assertEquals(other.toAbsolutePath().toString(), wm.getActiveDocument().getFilePath());
+    }
+
     @Test
     void testMultipleFilesSwitching() throws Exception {
         String file1 = tempDir.resolve("file1.txt").toAbsolutePath().toString();
@@ -320,5 +516,34 @@ class TextEditorE2ETest {
 
         // Cleanup state file
         Files.deleteIfExists(statePath);
+        Files.deleteIfExists(Path.of("workspace.snap"));
+    }
+
+    @Test
+    void testUnsavedEditsSurviveRestart() throws Exception {
+        Path filePath = tempDir.resolve("test_unsaved.txt");
+        String absPath = filePath.toAbsolutePath().toString();
+        Files.writeString(filePath, "on disk");
+
+        // 会话1：加载文件并修改，退出时选择不保存
+        Scanner session1Scanner = new Scanner(new ByteArrayInputStream(("n" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+        CommandExecutor executor1 = new CommandExecutor(session1Scanner);
+        executor1.execute("load " + absPath);
+        executor1.execute("append \"unsaved edit\"");
+        assertThrows(org.ztglab.ui.ConsoleUI.ExitRequestException.class, () -> executor1.execute("exit"));
+        assertEquals("on disk", Files.readString(filePath));
+
+        try {
+            // 会话2：从快照恢复，未保存的修改仍在
+            CommandExecutor executor2 = new CommandExecutor(new Scanner(new ByteArrayInputStream(new byte[0])));
+            Document doc = executor2.getWorkspace().getDocuments().get(absPath);
+            assertNotNull(doc);
+            assertEquals("on disk\nunsaved edit", doc.getContent());
+            assertTrue(doc.isModified());
+            assertEquals(doc, executor2.getWorkspace().getActiveDocument());
+        } finally {
+            Files.deleteIfExists(Path.of("workspace.state"));
+            Files.deleteIfExists(Path.of("workspace.snap"));
+        }
     }
 }
@@ -0,0 +1,131 @@
+package org.ztglab.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+
+    static class NumberEvent extends Event {
+        final int value;
+
+        NumberEvent(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getDescription() {
+            return "number " + value;
+        }
+    }
+
+    interface Tagged {
+    }
+
+    static class TaggedNumberEvent extends NumberEvent implements Tagged {
+        TaggedNumberEvent(int value) {
+            super(value);
+        }
+    }
+
+    @Test
+    @DisplayName("层次分发 - 父类与接口上的订阅也能收到事件")
+    void testHierarchicalDispatch() {
+        EventBus bus = new EventBus();
+        List<String> received = new ArrayList<>();
+        bus.subscribe(Event.class, event -> received.add("event"));
+        bus.subscribe(Tagged.class, event -> received.add("tagged"));
+        bus.subscribe(NumberEvent.class, event -> received.add("number"));
+        bus.subscribe(TaggedNumberEvent.class, event -> received.add("exact"));
+
+        bus.publish(new TaggedNumberEvent(1));
+        assertEquals(List.of("exact", "tagged", "number", "event"), received);
+
+        received.clear();
+        bus.publish(new NumberEvent(2));
+        assertEquals(List.of("number", "event"), received);
+    }
+
+    @Test
+    @DisplayName("层次分发 - 订阅变更后分发表重新计算")
+    void testDispatchTableInvalidatedOnSubscribe() {
+        EventBus bus = new EventBus();
+        List<String> received = new ArrayList<>();
+        assertFalse(bus.hasListener(NumberEvent.class));
+        bus.publish(new NumberEvent(1));
+
+        IEventListener<Event> listener = event -> received.add("event");
+        bus.subscribe(Event.class, listener);
+        assertTrue(bus.hasListener(NumberEvent.class));
+        bus.publish(new NumberEvent(2));
+        assertEquals(List.of("event"), received);
+
+        bus.unsubscribe(Event.class, listener);
+        bus.publish(new NumberEvent(3));
+        assertEquals(List.of("event"), received);
+        assertFalse(bus.hasListener(NumberEvent.class));
+    }
+
+    @Test
+    @DisplayName("事件历史 - 只保留最近的事件")
+    void testHistoryKeepsMostRecent() {
+        EventBus bus = new EventBus();
+        bus.setRecordHistory(true);
+        bus.setHistoryCapacity(3);
+        for (int i = 0; i < 10; i++) {
+            bus.publish(new NumberEvent(i));
+        }
+
+        List<Integer> recent = new ArrayList<>();
+        bus.forEachRecentEvent(2, event -> recent.add(((NumberEvent) event).value));
+        assertEquals(List.of(8, 9), recent);
+        assertEquals(3, bus.getEventHistory().size());
+        assertEquals(7, ((NumberEvent) bus.getEventHistory().get(0)).value);
+
+        bus.clearHistory();
+        assertTrue(bus.getEventHistory().isEmpty());
+        bus.publish(new NumberEvent(10));
+        assertEquals(1, bus.getEventHistory().size());
+    }
+
+    @Test
+    @DisplayName("异步监听器 - 有界队列下保持发布顺序")
+    void testAsyncListenerKeepsOrder() {
+        EventBus bus = new EventBus(Executors.newFixedThreadPool(2), 4);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribeAsync(NumberEvent.class, event -> received.add(event.value));
+
+        for (int i = 0; i < 200; i++) {
+            bus.publish(new NumberEvent(i));
+        }
+        assertTrue(bus.drain(5, TimeUnit.SECONDS));
+
+        assertEquals(200, received.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, received.get(i));
+        }
+        bus.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("关闭后 - 异步发布退化为同步分发")
+    void testPublishAfterShutdownIsSynchronous() {
+        EventBus bus = new EventBus();
+        List<Integer> received = new ArrayList<>();
+        bus.subscribe(NumberEvent.class, event -> received.add(event.value));
+        bus.subscribeAsync(NumberEvent.class, event -> received.add(-event.value));
+
+        bus.shutdown(1, TimeUnit.SECONDS);
+        assertTrue(bus.isShutdown());
+        bus.publishAsync(new NumberEvent(7));
+
+        assertEquals(List.of(7, -7), received);
+    }
+}
@@ -0,0 +1,96 @@
+package org.ztglab.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.infrastructure.AsyncLogPipeline;
+import org.ztglab.infrastructure.BinaryCommandLog;
+import org.ztglab.infrastructure.LoggingService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCommandLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("编码后读回 - 跨会话的命令名表互不影响，末尾不完整的记录被忽略")
+    void testRoundTrip() throws Exception {
+        long t0 = 1_735_689_600_000L;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        BinaryCommandLog.Encoder first = new BinaryCommandLog.Encoder(true);
+        out.writeBytes(first.encodeSession(t0));
+        out.writeBytes(first.encodeCommand(t0 + 5, "insert", "1:1 \"你好\"", null));
+        out.writeBytes(first.encodeCommand(t0 + 3, "insert", "2:1 \"x\"", null)); // 时间回拨
+        out.writeBytes(first.encodeCommand(t0 + 900, "delete", "1:1 9", "越界"));
+
+        // 新进程向同一文件追加：不写文件头，重新开始会话
+        BinaryCommandLog.Encoder second = new BinaryCommandLog.Encoder(false);
+        out.writeBytes(second.encodeCommand(t0 + 60_000, "append", "", null));
+        byte[] last = second.encodeCommand(t0 + 60_001, "insert", "3:1 \"y\"", null);
+        out.writeBytes(Arrays.copyOf(last, last.length - 2)); // 写入中途崩溃
+
+        Path file = tempDir.resolve(".a.txt.blog");
+        Files.write(file, out.toByteArray());
+        assertTrue(BinaryCommandLog.isBinaryLog(file));
+
+        List<BinaryCommandLog.Record> records = new ArrayList<>();
+        BinaryCommandLog.read(file, records::add);
+
+        assertEquals(6, records.size());
+        assertTrue(records.get(0).isSession());
+        assertEquals(new BinaryCommandLog.Record(t0 + 5, "insert", "1:1 \"你好\"", null), records.get(1));
+        assertEquals(new BinaryCommandLog.Record(t0 + 3, "insert", "2:1 \"x\"", null), records.get(2));
+        assertEquals(new BinaryCommandLog.Record(t0 + 900, "delete", "1:1 9", "越界"), records.get(3));
+        assertTrue(records.get(3).isFailed());
+        assertTrue(records.get(4).isSession());
+        assertEquals(new BinaryCommandLog.Record(t0 + 60_000, "append", "", null), records.get(5));
+    }
+
+    @Test
+    @DisplayName("异步写入 - DROP / SAMPLE 策略下二进制记录不被丢弃，回放顺序完整")
+    void testBinaryRecordsNeverDropped() throws Exception {
+        for (LoggingService.LogFormat format : List.of(LoggingService.LogFormat.BINARY, LoggingService.LogFormat.BOTH)) {
+            for (AsyncLogPipeline.OverflowPolicy policy :
+                    List.of(AsyncLogPipeline.OverflowPolicy.DROP, AsyncLogPipeline.OverflowPolicy.SAMPLE)) {
+                String file = "binary-" + format + "-" + policy + ".txt";
+                LoggingService service = new LoggingService();
+                service.setLogDirectory(tempDir.resolve("log"));
+                service.setFormat(format);
+                // 队列很小，一定会溢出
+                service.setAsyncCapacity(4);
+                service.setAsync(true);
+                service.getAsyncPipeline().setOverflowPolicy(policy);
+                service.enable(file);
+
+                List<String> expected = new ArrayList<>();
+                for (int i = 0; i < 5000; i++) {
+                    String name = i % 3 == 0 ? "insert" : i % 3 == 1 ? "delete" : "append";
+                    service.logCommand(file, name, "1:" + i);
+                    expected.add(name + " 1:" + i);
+                }
+                AsyncLogPipeline pipeline = service.getAsyncPipeline();
+                service.setAsync(false);
+
+                String label = format + " " + policy;
+                assertEquals(expected, service.readLoggedCommands(service.resolveLogFile(file)), label);
+                if (format == LoggingService.LogFormat.BOTH) {
+                    // 同一队列中的文本行照常按策略丢弃
+                    assertTrue(pipeline.getDroppedCount() > 0, label);
+                } else {
+                    assertEquals(0, pipeline.getDroppedCount(), label);
+                }
+                service.getWriter().closeAll();
+            }
+        }
+    }
+}
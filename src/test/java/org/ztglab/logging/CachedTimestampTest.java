@@ -0,0 +1,26 @@
+package org.ztglab.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.ztglab.infrastructure.CachedTimestamp;
+
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedTimestampTest {
+
+    @Test
+    @DisplayName("同一秒内复用格式化结果，跨秒重新格式化")
+    void testReuseWithinSameSecond() {
+        CachedTimestamp timestamp = new CachedTimestamp("yyyyMMdd HH:mm:ss", ZoneOffset.UTC);
+        long base = 1_735_689_600_000L; // 2025-01-01 00:00:00 UTC
+
+        String first = timestamp.format(base + 10);
+        assertEquals("20250101 00:00:00", first);
+        assertSame(first, timestamp.format(base + 999));
+
+        assertEquals("20250101 00:00:01", timestamp.format(base + 1000));
+        assertEquals("20241231 23:59:59", timestamp.format(base - 1));
+    }
+}
@@ -0,0 +1,34 @@
+package org.ztglab.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.ztglab.infrastructure.CommandNameSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandNameSetTest {
+
+    @Test
+    @DisplayName("完美哈希集合 - 包含的名字都能找到，其他名字（含哈希码相同的）都找不到")
+    void testContains() {
+        List<String> names = new ArrayList<>(List.of("insert", "append", "delete", "show", "show", ""));
+        // "Aa" 与 "BB" 的 String.hashCode 相同
+        names.add("Aa");
+        CommandNameSet set = CommandNameSet.of(names);
+
+        assertEquals(5, set.size());
+        for (String name : List.of("insert", "append", "delete", "show", "Aa")) {
+            assertTrue(set.contains(name), name);
+        }
+        for (String name : List.of("BB", "replace", "undo", "", "Show")) {
+            assertFalse(set.contains(name), name);
+        }
+        assertFalse(set.contains(null));
+
+        assertTrue(CommandNameSet.of(List.of()).isEmpty());
+        assertFalse(CommandNameSet.EMPTY.contains("insert"));
+    }
+}
@@ -0,0 +1,205 @@
+package org.ztglab.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.infrastructure.AsyncLogPipeline;
+import org.ztglab.infrastructure.CachedTimestamp;
+import org.ztglab.infrastructure.LogFileWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("缓冲写入 - flush 之前不落到文件，flush 之后可见")
+    void testBufferedUntilFlush() throws Exception {
+        LogFileWriter writer = new LogFileWriter(1024, 60_000);
+        Path log = tempDir.resolve("log").resolve(".a.txt.log");
+
+        writer.appendLine(log, "first");
+        writer.appendLine(log, "second");
+        assertEquals(0, Files.size(log));
+
+        writer.flush(log);
+        assertEquals(List.of("first", "second"), Files.readAllLines(log, StandardCharsets.UTF_8));
+        writer.closeAll();
+    }
+
+    @Test
+    @DisplayName("按大小刷新与关闭后重新打开 - 内容按顺序追加")
+    void testSizeFlushAndReopen() throws Exception {
+        LogFileWriter writer = new LogFileWriter(16, 60_000);
+        Path log = tempDir.resolve(".b.txt.log");
+
+        writer.appendLine(log, "0123456789abcdef"); // 超过缓冲区，直接写入
+        assertTrue(Files.size(log) > 0);
+        writer.appendLine(log, "x");
+        writer.close(log);
+        assertEquals(0, writer.getOpenChannelCount());
+
+        writer.appendLine(log, "y");
+        writer.closeAll();
+        assertEquals(List.of("0123456789abcdef", "x", "y"), Files.readAllLines(log, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("异步管道 - drain 后按提交顺序全部写出")
+    void testAsyncPipelineDrain() throws Exception {
+        LogFileWriter writer = new LogFileWriter(1024, 60_000);
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(writer, 16);
+        Path log = tempDir.resolve(".c.txt.log");
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            assertTrue(pipeline.submit(log, "line " + i)); // BLOCK 策略不丢弃
+            expected.add("line " + i);
+        }
+        assertTrue(pipeline.drain(5, TimeUnit.SECONDS));
+
+        assertEquals(expected, Files.readAllLines(log, StandardCharsets.UTF_8));
+        assertEquals(0, pipeline.getDroppedCount());
+        writer.closeAll();
+    }
+
+    @Test
+    @DisplayName("异步管道 - close 写完队列并停止写线程，之后的提交同步写入")
+    void testAsyncPipelineClose() throws Exception {
+        LogFileWriter writer = new LogFileWriter(1024, 60_000);
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(writer, 16);
+        Path log = tempDir.resolve(".g.txt.log");
+        long writersBefore = countWriterThreads();
+
+        for (int i = 0; i < 100; i++) {
+            pipeline.submit(log, "line " + i);
+        }
+        assertTrue(pipeline.close(5, TimeUnit.SECONDS));
+        assertTrue(pipeline.isClosed());
+        assertEquals(writersBefore, countWriterThreads());
+        assertEquals(100, Files.readAllLines(log, StandardCharsets.UTF_8).size());
+
+        assertTrue(pipeline.submit(log, "after close"));
+        assertEquals(writersBefore, countWriterThreads());
+        writer.flush(log);
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        assertEquals("after close", lines.get(lines.size() - 1));
+        writer.closeAll();
+    }
+
+    @Test
+    @DisplayName("异步管道 - close 超时后写线程仍独占队列，记录顺序不变")
+    void testAsyncPipelineCloseTimeoutKeepsOrder() throws Exception {
+        LogFileWriter writer = new LogFileWriter(1024, 60_000) {
+            @Override
+            public void appendLine(Path path, String line) throws IOException {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.appendLine(path, line);
+            }
+        };
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(writer, 1024);
+        Path log = tempDir.resolve(".h.txt.log");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add("line " + i);
+            pipeline.submit(log, "line " + i);
+        }
+
+        assertFalse(pipeline.close(1, TimeUnit.MILLISECONDS));
+        expected.add("after close");
+        pipeline.submit(log, "after close");
+
+        assertTrue(pipeline.drain(10, TimeUnit.SECONDS));
+        assertEquals(expected, Files.readAllLines(log, StandardCharsets.UTF_8));
+        writer.closeAll();
+    }
+
+    private static long countWriterThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("log-writer") && t.isAlive())
+                .count();
+    }
+
+    @Test
+    @DisplayName("轮转 - 超过大小上限后生成压缩分段，只保留最新的若干个")
+    void testRotationAndRetention() throws Exception {
+        LogFileWriter writer = new LogFileWriter(64, 60_000);
+        writer.setRotationPolicy(new LogFileWriter.RotationPolicy(100, 0, 2));
+        Path log = tempDir.resolve(".d.txt.log");
+
+        for (int i = 0; i < 40; i++) {
+            writer.appendLine(log, String.format("line %02d ....................", i));
+        }
+        writer.closeAll();
+
+        // 压缩与清理在后台线程进行
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<Path> segments = LogFileWriter.listSegments(log);
+        while ((segments.size() != 2 || !segments.stream().allMatch(p -> p.toString().endsWith(".gz")))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            segments = LogFileWriter.listSegments(log);
+        }
+        assertEquals(2, segments.size());
+        assertTrue(segments.stream().allMatch(p -> p.toString().endsWith(".gz")));
+        assertTrue(Files.size(log) <= 100);
+
+        List<String> current = Files.readAllLines(log, StandardCharsets.UTF_8);
+        assertEquals("line 39 ....................", current.get(current.size() - 1));
+        try (var in = new GZIPInputStream(Files.newInputStream(segments.get(1)))) {
+            String newest = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(newest.endsWith(String.format("line %02d ....................%n", 39 - current.size())));
+        }
+    }
+
+    @Test
+    @DisplayName("按时间轮转 - 开始时间取自第一条记录而不是文件时间，新分段从轮转时开始计时")
+    void testAgeRotation() throws Exception {
+        LogFileWriter writer = new LogFileWriter(64, 60_000);
+        writer.setRotationPolicy(new LogFileWriter.RotationPolicy(0, 1500, 5));
+
+        // 第一行已超过时间跨度：第一次写入即轮转，之后的写入不再轮转
+        Path old = tempDir.resolve(".e.txt.log");
+        Files.writeString(old, "session start at 20000101 00:00:00" + System.lineSeparator());
+        writer.appendLine(old, "a");
+        writer.appendLine(old, "b");
+        assertEquals(1, LogFileWriter.listSegments(old).size());
+        assertEquals(List.of("a", "b"), readAfterFlush(writer, old));
+
+        // 第一行是刚写入的：文件时间很旧也不轮转，超过时间跨度后只轮转一次
+        Path fresh = tempDir.resolve(".f.txt.log");
+        Files.writeString(fresh, "session start at " + new CachedTimestamp("yyyyMMdd HH:mm:ss").now()
+                + System.lineSeparator());
+        Files.setLastModifiedTime(fresh, FileTime.fromMillis(0));
+        writer.appendLine(fresh, "c");
+        assertTrue(LogFileWriter.listSegments(fresh).isEmpty());
+
+        Thread.sleep(1600);
+        writer.appendLine(fresh, "d");
+        writer.appendLine(fresh, "e");
+        assertEquals(1, LogFileWriter.listSegments(fresh).size());
+        assertEquals(List.of("d", "e"), readAfterFlush(writer, fresh));
+        writer.closeAll();
+    }
+
+    private static List<String> readAfterFlush(LogFileWriter writer, Path log) throws Exception {
+        writer.flush(log);
+        return Files.readAllLines(log, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,156 @@
+package org.ztglab.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.infrastructure.BinaryCommandLog;
+import org.ztglab.infrastructure.LogFileWriter;
+import org.ztglab.infrastructure.LogIndex;
+import org.ztglab.infrastructure.LogQuery;
+import org.ztglab.infrastructure.LoggingService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueryTest {
+
+    private static final String FILE = "log-query-test.txt";
+
+    @TempDir
+    Path tempDir;
+
+    private static String line(int i) {
+        // 每 60 行跨一分钟，保证时间戳递增
+        return String.format("20250101 %02d:%02d:%02d insert 1:%d some text to make the line longer",
+                i / 3600, i / 60 % 60, i % 60, i);
+    }
+
+    @Test
+    @DisplayName("写入时维护的索引与扫描已有文件得到的索引一致")
+    void testIndexMaintainedOnAppend() throws Exception {
+        Path log = tempDir.resolve(".a.log");
+        LogIndex live = new LogIndex();
+        LogFileWriter writer = new LogFileWriter();
+        writer.setAppendListener((path, offset, length, text) -> live.onAppend(offset, length, text));
+        for (int i = 0; i < 5000; i++) {
+            writer.appendLine(log, line(i));
+        }
+        writer.closeAll();
+
+        LogIndex scanned = new LogIndex();
+        scanned.catchUp(log);
+        live.catchUp(log);
+
+        assertTrue(scanned.size() > 1);
+        assertEquals(scanned.size(), live.size());
+        assertEquals(Files.size(log), scanned.getIndexedUpTo());
+
+        long key = LogQuery.parseTime("20250101-01:00:00", false);
+        long offset = scanned.floorOffset(key);
+        assertEquals(offset, live.floorOffset(key));
+        // 起始偏移处的行早于查询时间，且与目标相距不超过一个索引间隔
+        String content = Files.readString(log, StandardCharsets.UTF_8);
+        assertTrue(LogIndex.timestampKey(content.substring((int) offset)) < key);
+        assertTrue(content.indexOf("20250101 01:00:00") - offset < 128 * 1024);
+    }
+
+    @Test
+    @DisplayName("log-show 查询: tail / 时间范围 / grep / 分页")
+    void testQuery() {
+        LoggingService service = new LoggingService();
+        service.setLogDirectory(tempDir.resolve("log"));
+        service.enable(FILE);
+        for (int i = 0; i < 3000; i++) {
+            service.logCommand(FILE, "insert", "1:" + i + (i % 100 == 0 ? " marker" : ""));
+        }
+
+        List<String> tail = service.queryLog(FILE, new LogQuery(3, -1, -1, null, 0, 50)).lines();
+        assertEquals(3, tail.size());
+        assertTrue(tail.get(2).endsWith("insert 1:2999"));
+        assertTrue(tail.get(0).endsWith("insert 1:2997"));
+
+        List<String> marked = service.queryLog(FILE, new LogQuery(0, -1, -1, "marker$", 0, 50)).lines();
+        assertEquals(30, marked.size());
+
+        LogQuery.Result page = service.queryLog(FILE, new LogQuery(0, -1, -1, "insert", 2, 10));
+        assertEquals(10, page.lines().size());
+        assertTrue(page.lines().get(0).endsWith("insert 1:10"));
+        assertTrue(page.hasMore());
+
+        // 所有行都在今天之前或今天之内，未来的时间范围为空
+        assertTrue(service.queryLog(FILE, new LogQuery(0, LogQuery.parseTime("29991231", false), -1, null, 0, 50))
+                .lines().isEmpty());
+        assertEquals(3001, service.queryLog(FILE, new LogQuery(0, LogQuery.parseTime("20000101", false), -1, null, 0, 50))
+                .lines().size());
+        service.getWriter().closeAll();
+    }
+
+    @Test
+    @DisplayName("二进制日志 - log-show 查询与分段轮转，每个分段都能单独读取")
+    void testBinaryQueryAndRotation() throws Exception {
+        LoggingService service = new LoggingService();
+        service.setLogDirectory(tempDir.resolve("log"));
+        service.setFormat(LoggingService.LogFormat.BINARY);
+        service.getWriter().setRotationPolicy(new LogFileWriter.RotationPolicy(512, 0, 100));
+        service.enable(FILE);
+        for (int i = 0; i < 300; i++) {
+            service.logCommand(FILE, i % 2 == 0 ? "insert" : "delete", "1:" + i);
+        }
+        // 不再轮转，以下记录都在当前分段
+        service.getWriter().setRotationPolicy(null);
+        for (int i = 0; i < 20; i++) {
+            service.logCommand(FILE, "append", "\"line " + i + "\"");
+        }
+
+        List<String> tail = service.queryLog(FILE, new LogQuery(2, -1, -1, null, 0, 50)).lines();
+        assertEquals(2, tail.size());
+        assertTrue(tail.get(0).endsWith("append \"line 18\""));
+        assertTrue(tail.get(1).endsWith("append \"line 19\""));
+
+        LogQuery.Result page = service.queryLog(FILE, new LogQuery(0, -1, -1, "append", 2, 8));
+        assertEquals(8, page.lines().size());
+        assertTrue(page.lines().get(0).endsWith("append \"line 8\""));
+        assertTrue(page.hasMore());
+        assertFalse(service.queryLog(FILE, new LogQuery(0, -1, -1, "append", 3, 8)).hasMore());
+        assertTrue(service.queryLog(FILE, new LogQuery(0, LogQuery.parseTime("29991231", false), -1, null, 0, 50))
+                .lines().isEmpty());
+
+        // 当前分段与各历史分段都以文件头和会话记录开始，合起来包含全部命令
+        Path blog = tempDir.resolve("log").resolve("." + FILE + ".blog");
+        service.getWriter().closeAll();
+        // 压缩在后台线程进行，等全部压缩完再读
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<Path> segments = LogFileWriter.listSegments(blog);
+        while (!segments.stream().allMatch(p -> p.toString().endsWith(".gz")) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            segments = LogFileWriter.listSegments(blog);
+        }
+        assertTrue(segments.size() > 1);
+        int commands = 0;
+        for (Path segment : segments) {
+            Path plain = tempDir.resolve(segment.getFileName() + ".plain");
+            try (var in = new GZIPInputStream(Files.newInputStream(segment))) {
+                Files.write(plain, in.readAllBytes());
+            }
+            assertTrue(Files.size(plain) <= 512, segment.toString());
+            commands += countCommands(plain);
+        }
+        commands += countCommands(blog);
+        assertEquals(320, commands);
+    }
+
+    // 读取二进制日志中的命令条数，并检查以会话记录开始
+    private static int countCommands(Path file) throws Exception {
+        List<BinaryCommandLog.Record> records = new ArrayList<>();
+        BinaryCommandLog.read(file, records::add);
+        assertTrue(records.get(0).isSession(), file.toString());
+        return (int) records.stream().filter(r -> !r.isSession()).count();
+    }
+}
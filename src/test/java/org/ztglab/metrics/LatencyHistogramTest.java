@@ -0,0 +1,46 @@
+package org.ztglab.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.ztglab.infrastructure.LatencyHistogram;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("百分位 - 相对误差在 3% 以内")
+    void testPercentileAccuracy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000); // 1us ~ 100ms
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMaxNanos());
+        assertWithin(50_000_000, histogram.getValueAtPercentile(50));
+        assertWithin(99_000_000, histogram.getValueAtPercentile(99));
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    @DisplayName("小值精确记录，清空后重新开始")
+    void testSmallValuesAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(5);
+        histogram.record(-1);
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(5, histogram.getValueAtPercentile(100));
+        assertEquals(2, histogram.getMeanNanos());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.03,
+                "期望约 " + expected + "，实际 " + actual);
+    }
+}
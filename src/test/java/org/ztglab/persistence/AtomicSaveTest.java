@@ -0,0 +1,73 @@
+package org.ztglab.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.infrastructure.FileUtil;
+import org.ztglab.infrastructure.WorkspaceSnapshot;
+import org.ztglab.workspace.Document;
+import org.ztglab.workspace.TestDocumentFactory;
+import org.ztglab.workspace.Workspace;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicSaveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("原子保存 - 替换已有文件，内容与 getContent 一致，不留下临时文件")
+    void testReplaceExisting() throws Exception {
+        Path file = tempDir.resolve("a.txt");
+        Files.writeString(file, "old content that is longer than the new one");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r-----"));
+
+        Document doc = TestDocumentFactory.createDocument("第一行\nsecond\n\nlast");
+        FileUtil.saveFile(file.toString(), doc);
+
+        assertEquals(doc.getContent(), Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "temp file should be gone");
+        }
+    }
+
+    @Test
+    @DisplayName("原子保存 - 目标是符号链接时写入链接指向的文件，链接保持不变")
+    void testSymbolicLink() throws Exception {
+        Path real = Files.createDirectories(tempDir.resolve("real")).resolve("b.txt");
+        Files.writeString(real, "x");
+        Path link = Files.createSymbolicLink(tempDir.resolve("link.txt"), real);
+
+        FileUtil.saveFile(link.toString(), TestDocumentFactory.createDocument("new"));
+
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals("new", Files.readString(real));
+    }
+
+    @Test
+    @DisplayName("工作区快照 - 读取后不占用快照文件，尚未解码的内容不受下一次保存影响")
+    void testSnapshotNotHeldAfterRead() throws Exception {
+        Path snapshot = tempDir.resolve("workspace.snap");
+        Workspace workspace = new Workspace();
+        workspace.openDocument("/snap/a.txt", "original");
+        workspace.getDocument("/snap/a.txt").append("unsaved");
+        WorkspaceSnapshot.write(snapshot, workspace);
+
+        WorkspaceSnapshot.Entry entry = WorkspaceSnapshot.read(snapshot).entries().get(0);
+        // 内存映射要等垃圾回收才解除，Windows 上会导致下面的原子替换失败
+        assertFalse(entry.content().isDirect());
+
+        workspace.getDocument("/snap/a.txt").append("more");
+        WorkspaceSnapshot.write(snapshot, workspace);
+        assertEquals("original\nunsaved", entry.decodeContent());
+        assertEquals("original\nunsaved\nmore", WorkspaceSnapshot.read(snapshot).entries().get(0).decodeContent());
+    }
+}
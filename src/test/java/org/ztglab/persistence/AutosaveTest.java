@@ -0,0 +1,62 @@
+package org.ztglab.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.infrastructure.AutosaveService;
+import org.ztglab.workspace.Document;
+import org.ztglab.workspace.Workspace;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutosaveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("自动保存 - 只写入有修改的文档，保存后删除，恢复出最新内容")
+    void testAutosaveAndRecover() throws Exception {
+        AutosaveService service = new AutosaveService(tempDir.resolve("recovery"));
+        Workspace workspace = new Workspace();
+        String loaded = tempDir.resolve("loaded.txt").toString();
+        workspace.openDocument(loaded, "on disk");
+        service.setWorkspace(workspace);
+
+        // 未经编辑的文档不写入
+        service.capture();
+        service.flush();
+        assertTrue(service.listRecoverable().isEmpty());
+
+        String edited = tempDir.resolve("edited.txt").toString();
+        workspace.init(edited);
+        Document doc = workspace.getActiveDocument();
+        doc.append("first");
+        service.capture();
+        // 取快照之后的编辑不影响待写入的内容
+        doc.append("second");
+        service.flush();
+
+        List<AutosaveService.Recovered> recovered = service.listRecoverable();
+        assertEquals(1, recovered.size());
+        assertEquals(edited, recovered.get(0).filePath());
+        assertTrue(recovered.get(0).content().endsWith("first"));
+
+        service.capture();
+        service.flush();
+        assertTrue(service.listRecoverable().get(0).content().endsWith("first\nsecond"));
+
+        Workspace restarted = new Workspace();
+        restarted.recoverDocument(edited, service.listRecoverable().get(0).content());
+        assertEquals(doc.getContent(), restarted.getActiveDocument().getContent());
+        assertTrue(restarted.getActiveDocument().isModified());
+
+        workspace.notifySaved(edited);
+        service.capture();
+        service.flush();
+        assertTrue(service.listRecoverable().isEmpty());
+    }
+}
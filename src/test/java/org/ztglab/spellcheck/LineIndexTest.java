@@ -0,0 +1,72 @@
+package org.ztglab.spellcheck;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineIndexTest {
+
+    @Test
+    @DisplayName("单行文本 - 列号等于偏移+1")
+    void testSingleLine() {
+        LineIndex index = LineIndex.of("hello world");
+        assertEquals(1, index.getLineCount());
+        assertEquals(1, index.lineOf(0));
+        assertEquals(1, index.columnOf(0));
+        assertEquals(7, index.columnOf(6));
+    }
+
+    @Test
+    @DisplayName("多行文本 - 行首、行中、换行符位置")
+    void testMultiLine() {
+        String text = "ab\ncde\n\nf";
+        LineIndex index = LineIndex.of(text);
+        assertEquals(4, index.getLineCount());
+
+        assertEquals(1, index.lineOf(2));   // 第一行的 '\n'
+        assertEquals(3, index.columnOf(2));
+        assertEquals(2, index.lineOf(3));   // 'c'
+        assertEquals(1, index.columnOf(3));
+        assertEquals(2, index.lineOf(5));   // 'e'
+        assertEquals(3, index.columnOf(5));
+        assertEquals(3, index.lineOf(7));   // 空行
+        assertEquals(4, index.lineOf(8));   // 'f'
+        assertEquals(1, index.columnOf(8));
+    }
+
+    @Test
+    @DisplayName("与逐字符扫描结果一致")
+    void testMatchesLinearScan() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("line ").append(i).append(i % 7 == 0 ? "\n\n" : "\n");
+        }
+        String text = sb.toString();
+        LineIndex index = LineIndex.of(text);
+
+        int line = 1;
+        int col = 1;
+        for (int i = 0; i < text.length(); i++) {
+            assertEquals(line, index.lineOf(i), "offset " + i);
+            assertEquals(col, index.columnOf(i), "offset " + i);
+            if (text.charAt(i) == '\n') {
+                line++;
+                col = 1;
+            } else {
+                col++;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("SpellIssue 默认格式与元素归属")
+    void testSpellIssueFormat() {
+        SpellIssue issue = new SpellIssue(1, 5, 7, "recieve", java.util.List.of("receive"), "Possible spelling mistake");
+        assertEquals("第1行，第5列: \"recieve\" -> 建议: receive", issue.format());
+        assertEquals("元素 title: 第1行，第5列: \"recieve\" -> 建议: receive", issue.withElement("title").format());
+
+        SpellIssue noSuggestion = new SpellIssue(2, 1, 3, "xyz", null, null);
+        assertTrue(noSuggestion.format().endsWith("（无建议）"));
+    }
+}
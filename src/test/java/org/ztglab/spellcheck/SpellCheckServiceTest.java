@@ -0,0 +1,178 @@
+package org.ztglab.spellcheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.ztglab.command.CommandBus;
+import org.ztglab.infrastructure.SpellCheckService;
+import org.ztglab.workspace.Document;
+import org.ztglab.workspace.IEditor;
+import org.ztglab.workspace.Workspace;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpellCheckServiceTest {
+
+    private final SpellCheckService service = new SpellCheckService();
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("防抖 - 等待期间的新编辑取消旧任务，只检查最新内容")
+    void testDebounce() throws Exception {
+        StubEditor editor = new StubEditor();
+        Document doc = openDocument("a");
+        service.setDebounceMillis(300);
+
+        service.schedule(doc, editor);
+        doc.append("b");
+        service.schedule(doc, editor);
+
+        await(() -> service.getLatestReport(doc.getFilePath()) != null);
+        assertEquals(doc.getVersion(), service.getLatestReport(doc.getFilePath()).getVersion());
+        assertEquals(List.of("a\nb"), editor.checked);
+    }
+
+    @Test
+    @DisplayName("取消 - 已取消的检查不写入结果")
+    void testCancel() throws Exception {
+        StubEditor editor = new StubEditor();
+        Document doc = openDocument("a");
+        service.setDebounceMillis(300);
+
+        service.schedule(doc, editor);
+        service.cancel(doc.getFilePath());
+
+        Thread.sleep(500);
+        assertNull(service.getLatestReport(doc.getFilePath()));
+        assertTrue(editor.checked.isEmpty());
+    }
+
+    @Test
+    @DisplayName("后台检查失败后同一版本可以再次安排")
+    void testRetryAfterFailure() throws Exception {
+        StubEditor editor = new StubEditor();
+        editor.failures = 1;
+        Document doc = openDocument("a");
+        service.setDebounceMillis(0);
+
+        service.schedule(doc, editor);
+        await(() -> editor.checked.size() == 1);
+        // 失败的任务结束后不能留下排队记录，否则该版本再也不会被检查
+        await(() -> {
+            service.schedule(doc, editor);
+            return service.getLatestReport(doc.getFilePath()) != null;
+        });
+        assertEquals(doc.getVersion(), service.getLatestReport(doc.getFilePath()).getVersion());
+    }
+
+    @Test
+    @DisplayName("缓存 - 同一版本直接返回，版本落后时返回旧结果并在后台更新")
+    void testCachedReport() throws Exception {
+        StubEditor editor = new StubEditor();
+        Document doc = openDocument("a");
+        service.setDebounceMillis(0);
+
+        SpellCheckReport first = service.getReport(doc, editor);
+        assertSame(first, service.getReport(doc, editor));
+        assertEquals(1, editor.checked.size());
+
+        doc.append("b");
+        assertSame(first, service.getReport(doc, editor));
+        await(() -> service.getLatestReport(doc.getFilePath()).getVersion() == doc.getVersion());
+        assertEquals(List.of("a", "a\nb"), editor.checked);
+    }
+
+    @Test
+    @DisplayName("缓存代数 - 检查期间缓存失效时结果不写入缓存")
+    void testInvalidateDuringCheck() throws Exception {
+        StubEditor editor = new StubEditor();
+        editor.onCheck = service::invalidateAll;
+        Document doc = openDocument("a");
+
+        SpellCheckReport report = service.getReport(doc, editor);
+        assertEquals(doc.getVersion(), report.getVersion());
+        assertNull(service.getLatestReport(doc.getFilePath()));
+
+        editor.onCheck = null;
+        service.getReport(doc, editor);
+        assertNotNull(service.getLatestReport(doc.getFilePath()));
+    }
+
+    private static Document openDocument(String content) throws Exception {
+        Workspace workspace = new Workspace();
+        workspace.openDocument("/spell/a.txt", content);
+        return workspace.getDocument("/spell/a.txt");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 只记录被检查内容的编辑器，可以指定前几次检查失败
+     */
+    private static final class StubEditor implements IEditor {
+        private final List<String> checked = new CopyOnWriteArrayList<>();
+        private volatile int failures;
+        private volatile Runnable onCheck;
+
+        @Override
+        public List<SpellIssue> spellCheck(String content) throws Exception {
+            checked.add(content);
+            Runnable hook = onCheck;
+            if (hook != null) {
+                hook.run();
+            }
+            if (failures > 0) {
+                failures--;
+                throw new Exception("检查失败");
+            }
+            return List.of();
+        }
+
+        @Override
+        public String show(Document doc, int start, int end) {
+            return doc.getContent();
+        }
+
+        @Override
+        public String show(Document doc) {
+            return doc.getContent();
+        }
+
+        @Override
+        public boolean undo(Document doc) {
+            return false;
+        }
+
+        @Override
+        public boolean redo(Document doc) {
+            return false;
+        }
+
+        @Override
+        public void initDocument(Document doc) {
+        }
+
+        @Override
+        public void registerCommands(CommandBus bus, Workspace workspace) {
+        }
+
+        @Override
+        public EditorCommand resolveCommand(String name) {
+            return null;
+        }
+    }
+}
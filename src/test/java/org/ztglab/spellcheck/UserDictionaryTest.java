@@ -0,0 +1,76 @@
+package org.ztglab.spellcheck;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDictionaryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("布隆过滤器 - 已加入的元素一定命中")
+    void testBloomFilterNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("term" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("term" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 500, "误判率应接近 1%，实际: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("词典与忽略列表 - 不区分大小写")
+    void testContainsIgnoresCase() {
+        UserDictionary dictionary = new UserDictionary();
+        assertTrue(dictionary.add("ZtgLab"));
+        assertFalse(dictionary.add("ZtgLab"), "重复加入应返回 false");
+        assertTrue(dictionary.ignore("xmlns"));
+
+        assertTrue(dictionary.contains("ztglab"));
+        assertTrue(dictionary.contains("ZTGLAB"));
+        assertTrue(dictionary.contains("XMLNS"));
+        assertFalse(dictionary.contains("receive"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("词典持久化 - 忽略列表不写入文件")
+    void testPersistence() throws Exception {
+        Path file = tempDir.resolve("workspace.dic");
+        UserDictionary dictionary = new UserDictionary(file);
+        dictionary.add("bookstore");
+        dictionary.ignore("sessiononly");
+        assertTrue(Files.readString(file).contains("bookstore"));
+
+        UserDictionary reloaded = new UserDictionary(file);
+        assertTrue(reloaded.contains("Bookstore"));
+        assertFalse(reloaded.contains("sessiononly"));
+    }
+
+    @Test
+    @DisplayName("版本号 - 词汇变化时自增")
+    void testVersion() {
+        UserDictionary dictionary = new UserDictionary();
+        long before = dictionary.getVersion();
+        dictionary.add("alpha");
+        assertTrue(dictionary.getVersion() > before);
+        long afterAdd = dictionary.getVersion();
+        dictionary.add("alpha");
+        assertEquals(afterAdd, dictionary.getVersion());
+    }
+}
@@ -124,4 +124,43 @@ public class DocumentTest {
         Document doc = new Document("a\nb\n");
         assertEquals("a\nb\n", doc.getContent());
     }
+
+    @Test
+    @DisplayName("snapshot - 快照不受之后的编辑影响")
+    void testSnapshotIsolation() throws Exception {
+        Document doc = new Document("a\nb\nc");
+        Document.Snapshot snapshot = doc.snapshot();
+
+        doc.insert(1, 2, "1");
+        doc.deleteLine(3);
+        doc.append("d");
+
+        assertEquals(java.util.List.of("a", "b", "c"), snapshot.lines());
+        assertEquals(0, snapshot.version());
+        assertEquals("a1\nb\nd", doc.getContent());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.lines().add("x"));
+    }
+
+    @Test
+    @DisplayName("placeholder - 第一次访问时才加载内容，只加载一次")
+    void testPlaceholderLoadsOnFirstAccess() throws Exception {
+        java.util.concurrent.atomic.AtomicInteger loads = new java.util.concurrent.atomic.AtomicInteger();
+        Document doc = Document.placeholder(() -> {
+            loads.incrementAndGet();
+            return "x\ny";
+        });
+        assertFalse(doc.isLoaded());
+        assertEquals(0, loads.get());
+
+        doc.append("z");
+        assertTrue(doc.isLoaded());
+        assertEquals("x\ny\nz", doc.getContent());
+        assertEquals(1, loads.get());
+
+        Document broken = Document.placeholder(() -> {
+            throw new java.io.IOException("gone");
+        });
+        assertThrows(java.io.UncheckedIOException.class, broken::getLineCount);
+        assertFalse(broken.isLoaded());
+    }
 }
@@ -0,0 +1,99 @@
+package org.ztglab.workspace;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.ztglab.infrastructure.WorkspaceMemoryManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryBudgetTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("超出预算 - 释放最久未使用的未修改文档，访问时重新读取")
+    void testEvictLeastRecentlyUsed() throws Exception {
+        Workspace workspace = new Workspace();
+        String[] paths = new String[3];
+        for (int i = 0; i < paths.length; i++) {
+            Path file = tempDir.resolve("f" + i + ".txt");
+            Files.writeString(file, ("line " + i + "\n").repeat(100));
+            paths[i] = file.toString();
+        }
+
+        WorkspaceMemoryManager manager = new WorkspaceMemoryManager(0);
+        manager.setWorkspace(workspace);
+        workspace.openDocument(paths[0], Files.readString(Path.of(paths[0])));
+        manager.enforce();
+        workspace.openDocument(paths[1], Files.readString(Path.of(paths[1])));
+        manager.enforce();
+        workspace.getDocument(paths[1]).append("edited");
+        workspace.openDocument(paths[2], Files.readString(Path.of(paths[2])));
+        manager.enforce();
+
+        long perDocument = workspace.getDocument(paths[0]).estimateFootprint();
+        assertTrue(perDocument > 0);
+        assertEquals(perDocument * 2 + workspace.getDocument(paths[1]).estimateFootprint(), manager.getTotalBytes());
+
+        // 预算只够两个文档：释放最久未使用的 f0；f1 已修改、f2 是活动文档，都保留
+        manager.setBudgetBytes(manager.getTotalBytes() - perDocument / 2);
+        manager.enforce();
+        Document first = workspace.getDocument(paths[0]);
+        assertFalse(first.isLoaded());
+        assertTrue(workspace.getDocument(paths[1]).isLoaded());
+        assertTrue(workspace.getDocument(paths[2]).isLoaded());
+        assertEquals(1, manager.getEvictedCount());
+        assertEquals(0, first.estimateFootprint());
+
+        // 再次访问时从磁盘读回，版本号不变
+        long version = first.getVersion();
+        assertEquals(("line 0\n").repeat(100), first.getContent());
+        assertEquals(version, first.getVersion());
+        assertFalse(first.isModified());
+
+        // 切换为活动文档的 f0 即使未修改也不释放，已修改的 f1 也不释放
+        workspace.edit(paths[0]);
+        manager.setBudgetBytes(1);
+        manager.enforce();
+        assertTrue(first.isLoaded());
+        assertTrue(workspace.getDocument(paths[1]).isLoaded());
+        assertFalse(workspace.getDocument(paths[2]).isLoaded());
+        assertEquals(2, manager.getEvictedCount());
+    }
+
+    @Test
+    @DisplayName("释放期间文件被外部修改 - 重新读取后版本号加一，撤销历史清空")
+    void testExternalEditWhileEvicted() throws Exception {
+        Workspace workspace = new Workspace();
+        Path file = tempDir.resolve("ext.txt");
+        Files.writeString(file, "one");
+        workspace.openDocument(file.toString(), "one");
+        Document doc = workspace.getDocument(file.toString());
+
+        // 编辑后保存：有撤销历史，内容与磁盘一致
+        new TextEditor().resolveCommand("append").execute(doc, "\"two\"");
+        Files.writeString(file, doc.getContent());
+        doc.setModified(false);
+        assertTrue(doc.getHistory().canUndo());
+
+        // 内容未变：版本号与撤销历史保留
+        long version = doc.getVersion();
+        assertTrue(doc.evict(() -> Files.readString(file)));
+        assertEquals("one\ntwo", doc.getContent());
+        assertEquals(version, doc.getVersion());
+        assertTrue(doc.getHistory().canUndo());
+
+        // 释放期间被外部修改
+        assertTrue(doc.evict(() -> Files.readString(file)));
+        Files.writeString(file, "changed elsewhere");
+        assertEquals("changed elsewhere", doc.getContent());
+        assertTrue(doc.getVersion() > version);
+        assertFalse(doc.getHistory().canUndo());
+        assertFalse(doc.isModified());
+    }
+}
@@ -0,0 +1,87 @@
+package org.ztglab.workspace;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathSuffixIndexTest {
+
+    @Test
+    @DisplayName("后缀查找 - 唯一、多个、未匹配")
+    void testMatch() {
+        PathSuffixIndex index = new PathSuffixIndex();
+        index.add("/work/src/a.txt");
+        index.add("/work/doc/a.txt");
+        index.add("/work/src/ab.txt");
+
+        assertEquals(List.of("/work/src/ab.txt"), index.match("ab.txt", 2));
+        assertEquals(List.of("/work/doc/a.txt"), index.match("doc/a.txt", 2));
+        // 与 endsWith 一致："b.txt" 匹配 "ab.txt"
+        assertEquals(1, index.count("b.txt"));
+        assertEquals(2, index.count("a.txt"));
+        assertEquals(2, index.match("a.txt", 2).size());
+        assertEquals(3, index.count(""));
+        assertTrue(index.match("c.txt", 2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("移除与改名后索引同步")
+    void testRemove() {
+        PathSuffixIndex index = new PathSuffixIndex();
+        index.add("/work/src/a.txt");
+        index.add("/work/doc/a.txt");
+
+        index.remove("/work/src/a.txt");
+        index.add("/work/src/b.txt");
+        assertEquals(List.of("/work/doc/a.txt"), index.match("a.txt", 2));
+        assertFalse(index.contains("/work/src/a.txt"));
+        assertEquals(0, index.count("src/a.txt"));
+
+        // 重复加入、移除不存在的路径不影响计数
+        index.add("/work/doc/a.txt");
+        index.remove("/work/none.txt");
+        assertEquals(2, index.count(""));
+    }
+
+    @Test
+    @DisplayName("与逐个 endsWith 扫描结果一致")
+    void testMatchesLinearScan() {
+        Random random = new Random(7);
+        String[] parts = {"a", "b", "ab", "src", "x.txt", "a.xml", ".txt"};
+        PathSuffixIndex index = new PathSuffixIndex();
+        Set<String> paths = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder path = new StringBuilder();
+            int depth = 1 + random.nextInt(4);
+            for (int d = 0; d < depth; d++) {
+                path.append('/').append(parts[random.nextInt(parts.length)]);
+            }
+            String p = path.toString();
+            if (random.nextInt(4) == 0) {
+                index.remove(p);
+                paths.remove(p);
+            } else {
+                index.add(p);
+                paths.add(p);
+            }
+        }
+
+        for (String path : new ArrayList<>(paths)) {
+            for (int i = 0; i <= path.length(); i++) {
+                String suffix = path.substring(i);
+                List<String> expected = paths.stream().filter(p -> p.endsWith(suffix)).toList();
+                assertEquals(expected.size(), index.count(suffix), suffix);
+                List<String> matched = index.match(suffix, 2);
+                assertEquals(Math.min(2, expected.size()), matched.size(), suffix);
+                assertTrue(expected.containsAll(matched), suffix);
+            }
+        }
+    }
+}